@@ -0,0 +1,173 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aventstack.extentreports.service.ExtentService;
+
+import cucumber.api.Result;
+import cucumber.api.TestCase;
+import cucumber.api.TestStep;
+import cucumber.api.event.EmbedEvent;
+import cucumber.api.event.TestCaseFinished;
+import cucumber.api.event.TestCaseStarted;
+import cucumber.api.event.TestSourceRead;
+import cucumber.api.event.TestStepFinished;
+import cucumber.api.event.TestStepStarted;
+
+/**
+ * Measures the cost of the adapter's event handlers by replaying synthetic
+ * Cucumber event streams through {@link ExtentCucumberAdapter}. Thread counts
+ * are set with JMH's {@code -t}; allocation rates with {@code -prof gc}.
+ *
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Djmh.args="-t 4 -p async=true -prof gc"
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdapterBenchmark {
+
+    private static final Result PASSED = new Result(Result.Type.PASSED, 1L, null);
+
+    @Param("10")
+    int features;
+
+    @Param("20")
+    int scenarios;
+
+    @Param("8")
+    int steps;
+
+    /**
+     * Examples rows of the scenario outline added to each feature, none when 0
+     */
+    @Param("0")
+    int examples;
+
+    /**
+     * Size of the PNG payload embedded after every step, none when 0
+     */
+    @Param("0")
+    int embedBytes;
+
+    @Param("false")
+    boolean async;
+
+    private final SyntheticEventPublisher publisher = new SyntheticEventPublisher();
+    private final List<TestCase> testCases = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private byte[] embed;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        TestCase testCase;
+        int step;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("extent.adapter.async", String.valueOf(async));
+        ExtentCucumberAdapter adapter = new ExtentCucumberAdapter("");
+        adapter.setEventPublisher(publisher);
+        for (int i = 0; i < features; i++) {
+            SyntheticFeature feature = new SyntheticFeature(i, scenarios, steps, examples);
+            publisher.publish(new TestSourceRead(0L, 0L, feature.uri, feature.source));
+            testCases.addAll(feature.testCases);
+        }
+        embed = new byte[embedBytes];
+    }
+
+    /**
+     * Drops the report built during the iteration, so the model does not keep
+     * growing across iterations
+     */
+    @TearDown(Level.Iteration)
+    public void reset() throws ReflectiveOperationException {
+        clearReport();
+    }
+
+    /**
+     * Waits for pending report events, then clears the report and the
+     * adapter's feature and outline nodes
+     */
+    static void clearReport() throws ReflectiveOperationException {
+        ExtentCucumberAdapter.getCurrentStep();
+        ExtentService.getInstance().getReport().getTestList().clear();
+        for (String name : new String[]{"featureMap", "scenarioOutlineMap"}) {
+            Field field = ExtentCucumberAdapter.class.getDeclaredField(name);
+            field.setAccessible(true);
+            ((Map<?, ?>) field.get(null)).clear();
+        }
+    }
+
+    /**
+     * Replays one complete test case: start, every step and finish
+     */
+    @Benchmark
+    public void testCase() {
+        TestCase testCase = nextTestCase();
+        publisher.publish(new TestCaseStarted(0L, 0L, testCase));
+        for (TestStep step : testCase.getTestSteps()) {
+            publishStep(testCase, step);
+        }
+        publisher.publish(new TestCaseFinished(0L, 0L, testCase, PASSED));
+    }
+
+    /**
+     * Replays a single step; test cases are started and finished around the
+     * steps of the calling thread as its cursor moves on
+     */
+    @Benchmark
+    public void step(Cursor cursor) {
+        if (cursor.testCase == null) {
+            cursor.testCase = nextTestCase();
+            cursor.step = 0;
+            publisher.publish(new TestCaseStarted(0L, 0L, cursor.testCase));
+        }
+        publishStep(cursor.testCase, cursor.testCase.getTestSteps().get(cursor.step++));
+        if (cursor.step == cursor.testCase.getTestSteps().size()) {
+            publisher.publish(new TestCaseFinished(0L, 0L, cursor.testCase, PASSED));
+            cursor.testCase = null;
+        }
+    }
+
+    /**
+     * Test cases are matched by identity, so each run gets its own instance
+     * in case another thread is still running the same scenario
+     */
+    private TestCase nextTestCase() {
+        TestCase t = testCases.get((next.getAndIncrement() & Integer.MAX_VALUE) % testCases.size());
+        return new SyntheticFeature.SyntheticTestCase(t.getUri(), t.getLine(), t.getName(), t.getTestSteps());
+    }
+
+    private void publishStep(TestCase testCase, TestStep step) {
+        publisher.publish(new TestStepStarted(0L, 0L, testCase, step));
+        if (embed.length > 0) {
+            publisher.publish(new EmbedEvent(0L, 0L, testCase, embed, "image/png"));
+        }
+        publisher.publish(new TestStepFinished(0L, 0L, testCase, step, PASSED));
+    }
+}
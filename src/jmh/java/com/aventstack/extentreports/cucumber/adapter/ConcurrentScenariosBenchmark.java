@@ -0,0 +1,144 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import cucumber.api.Result;
+import cucumber.api.TestCase;
+import cucumber.api.TestStep;
+import cucumber.api.event.TestCaseFinished;
+import cucumber.api.event.TestCaseStarted;
+import cucumber.api.event.TestSourceRead;
+import cucumber.api.event.TestStepFinished;
+import cucumber.api.event.TestStepStarted;
+import io.cucumber.core.api.Scenario;
+
+/**
+ * Measures the adapter with many scenarios open at once, as with a runner
+ * that starts one virtual thread per scenario. Each benchmark thread keeps
+ * {@code concurrent} scenarios running and advances them in turn, one step
+ * per operation, logging through the accessors that take a
+ * {@link Scenario}; a finished scenario is started again right away.
+ *
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Djmh.args="ConcurrentScenariosBenchmark -t 4 -p concurrent=10000"
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentScenariosBenchmark {
+
+    private static final Result PASSED = new Result(Result.Type.PASSED, 1L, null);
+
+    /**
+     * Scenarios open at once on each benchmark thread
+     */
+    @Param({"100", "10000", "50000"})
+    int concurrent;
+
+    @Param("20")
+    int scenarios;
+
+    @Param("8")
+    int steps;
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param("false")
+    boolean async;
+
+    private final SyntheticEventPublisher publisher = new SyntheticEventPublisher();
+    private final List<TestCase> testCases = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * The scenarios of one benchmark thread. Each slot owns a distinct test
+     * case, so no two open scenarios share an id
+     */
+    @State(Scope.Thread)
+    public static class Scenarios {
+        TestCase[] testCases;
+        TestCase[] running;
+        Scenario[] scenarios;
+        int[] steps;
+        int slot;
+
+        @Setup(Level.Trial)
+        public void setUp(ConcurrentScenariosBenchmark benchmark) {
+            int n = benchmark.concurrent;
+            int offset = benchmark.next.getAndAdd(n);
+            testCases = benchmark.testCases.subList(offset, offset + n).toArray(new TestCase[0]);
+            running = new TestCase[n];
+            scenarios = new Scenario[n];
+            steps = new int[n];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        System.setProperty("extent.adapter.async", String.valueOf(async));
+        System.setProperty("extent.adapter.virtual.threads", String.valueOf(virtualThreads));
+        ExtentCucumberAdapter adapter = new ExtentCucumberAdapter("");
+        adapter.setEventPublisher(publisher);
+        int features = (concurrent * params.getThreads() + scenarios - 1) / scenarios;
+        for (int i = 0; i < features; i++) {
+            SyntheticFeature feature = new SyntheticFeature(i, scenarios, steps, 0);
+            publisher.publish(new TestSourceRead(0L, 0L, feature.uri, feature.source));
+            testCases.addAll(feature.testCases);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void reset() throws ReflectiveOperationException {
+        AdapterBenchmark.clearReport();
+    }
+
+    /**
+     * Advances the next open scenario of the calling thread by one step,
+     * starting or finishing it as needed
+     */
+    @Benchmark
+    public void step(Scenarios state) {
+        int slot = state.slot;
+        state.slot = slot + 1 == state.running.length ? 0 : slot + 1;
+        TestCase testCase = state.running[slot];
+        if (testCase == null) {
+            TestCase t = state.testCases[slot];
+            testCase = new SyntheticFeature.SyntheticTestCase(t.getUri(), t.getLine(), t.getName(), t.getTestSteps());
+            state.running[slot] = testCase;
+            state.scenarios[slot] = new SyntheticFeature.SyntheticScenario(testCase);
+            state.steps[slot] = 0;
+            publisher.publish(new TestCaseStarted(0L, 0L, testCase));
+        }
+        TestStep step = testCase.getTestSteps().get(state.steps[slot]++);
+        publisher.publish(new TestStepStarted(0L, 0L, testCase, step));
+        ExtentCucumberAdapter.addTestStepLog(state.scenarios[slot], "log");
+        publisher.publish(new TestStepFinished(0L, 0L, testCase, step, PASSED));
+        if (state.steps[slot] == testCase.getTestSteps().size()) {
+            publisher.publish(new TestCaseFinished(0L, 0L, testCase, PASSED));
+            state.running[slot] = null;
+        }
+    }
+}
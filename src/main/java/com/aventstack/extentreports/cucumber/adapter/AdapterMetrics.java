@@ -0,0 +1,181 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers for the time the adapter adds to a run. Recording is a
+ * handful of {@link LongAdder} increments, so it stays on for every run; the
+ * summary is written next to the Spark report when the run finishes and can be
+ * read at any time through {@link ExtentCucumberAdapter#getMetrics()}.
+ *
+ * <p>
+ * Event timers measure the time spent on the thread that publishes the event:
+ * the whole handler by default, or only the enqueue in async mode.
+ * </p>
+ */
+public final class AdapterMetrics {
+
+    public enum Event {
+        TEST_CASE_STARTED,
+        TEST_CASE_FINISHED,
+        TEST_STEP_STARTED,
+        TEST_STEP_FINISHED,
+        EMBED,
+        WRITE,
+        TEST_RUN_FINISHED
+    }
+
+    private final Map<Event, Timer> events = new EnumMap<>(Event.class);
+    private final Timer lockWait = new Timer();
+    private final Timer flush = new Timer();
+    private final LongAdder embedsWritten = new LongAdder();
+    private final LongAdder embedBytesWritten = new LongAdder();
+    private final LongAdder nodesCreated = new LongAdder();
+    private final LongAdder nodesRemoved = new LongAdder();
+
+    AdapterMetrics() {
+        for (Event event : Event.values()) {
+            events.put(event, new Timer());
+        }
+    }
+
+    public Timer getEventTimer(Event event) {
+        return events.get(event);
+    }
+
+    /**
+     * Time spent waiting for the report gate used by incremental flushes and
+     * spills
+     */
+    public Timer getLockWait() {
+        return lockWait;
+    }
+
+    public Timer getFlush() {
+        return flush;
+    }
+
+    public long getEmbedsWritten() {
+        return embedsWritten.sum();
+    }
+
+    public long getEmbedBytesWritten() {
+        return embedBytesWritten.sum();
+    }
+
+    public long getNodesCreated() {
+        return nodesCreated.sum();
+    }
+
+    public long getNodesRemoved() {
+        return nodesRemoved.sum();
+    }
+
+    void embedWritten(long bytes) {
+        embedsWritten.increment();
+        embedBytesWritten.add(bytes);
+    }
+
+    void nodeCreated() {
+        nodesCreated.increment();
+    }
+
+    void nodeRemoved() {
+        nodesRemoved.increment();
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        Map<String, Object> eventMap = new LinkedHashMap<>();
+        events.forEach((k, v) -> eventMap.put(k.name(), v.toMap()));
+        map.put("events", eventMap);
+        map.put("lockWait", lockWait.toMap());
+        map.put("flush", flush.toMap());
+        map.put("embedsWritten", getEmbedsWritten());
+        map.put("embedBytesWritten", getEmbedBytesWritten());
+        map.put("nodesCreated", getNodesCreated());
+        map.put("nodesRemoved", getNodesRemoved());
+        return map;
+    }
+
+    /**
+     * Records durations into power-of-two buckets, so percentiles are reported
+     * as the upper bound of their bucket (within a factor of two)
+     */
+    public static final class Timer {
+        private static final int BUCKETS = 64;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        Timer() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records the time elapsed since {@code startNanos}, as returned by
+         * {@link System#nanoTime()}
+         */
+        void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            buckets[Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(nanos))].increment();
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getPercentileNanos(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long rank = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, getMaxNanos());
+                }
+            }
+            return 0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", getCount());
+            map.put("totalNanos", getTotalNanos());
+            map.put("p50Nanos", getPercentileNanos(50));
+            map.put("p99Nanos", getPercentileNanos(99));
+            map.put("maxNanos", getMaxNanos());
+            return map;
+        }
+    }
+}
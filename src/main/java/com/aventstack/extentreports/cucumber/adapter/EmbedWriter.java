@@ -0,0 +1,357 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes embedded attachments off the Cucumber threads. Payloads are handed to
+ * a bounded pool of writer threads, which bounds the memory held by pending
+ * attachments. When the pool's queue is full, the submitting thread writes a
+ * local file itself; an upload waits for room up to the submit timeout, and is
+ * then dropped with a warning, so an upload never runs on a Cucumber thread.
+ * {@link #flush(long, TimeUnit)} is a barrier for every write submitted before
+ * it.
+ *
+ * <p>
+ * Uploads to http(s) URLs use the given timeouts and are retried with
+ * exponential backoff on I/O errors and on 5xx or 429 responses. Responses are
+ * read to the end, so the JDK keeps the connections alive and each writer
+ * thread reuses its connection to the server.
+ * </p>
+ */
+final class EmbedWriter {
+
+    private static final Logger logger = Logger.getLogger(EmbedWriter.class.getName());
+    private static final int TRANSFER_CHUNK = 1 << 20;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ThreadPoolExecutor executor;
+    private final Phaser pending = new Phaser(1);
+    private final AdapterMetrics metrics;
+    private final HttpSettings http;
+    private final long submitTimeoutMillis;
+    // file written for each payload hash and extension, with the dedupe option
+    private final Map<String, String> writtenFiles;
+    // phase of a flush that timed out, which the next flush waits for again
+    // instead of arriving twice
+    private int flushPhase = -1;
+
+    /**
+     * @param submitTimeoutMillis how long a submitting thread waits for room in
+     *        a full queue before dropping an upload
+     * @param dedupe whether identical payloads are written only once
+     */
+    EmbedWriter(int threads, int queueSize, long submitTimeoutMillis, boolean dedupe, HttpSettings http,
+            AdapterMetrics metrics) {
+        this.metrics = metrics;
+        this.http = http;
+        this.submitTimeoutMillis = submitTimeoutMillis;
+        this.writtenFiles = dedupe ? new ConcurrentHashMap<>() : null;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "extent-embed-writer-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new WaitForRoomPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Writes the payload to a new file, named by {@code newFileName}, and
+     * returns its name; with the dedupe option, returns the file already
+     * written, or being written, for an identical payload instead. A payload
+     * whose write fails or is dropped is forgotten, so the next identical
+     * payload is written again
+     */
+    String write(byte[] data, String extension, Supplier<String> newFileName, Function<String, URL> toUrl) {
+        if (writtenFiles == null) {
+            String fileName = newFileName.get();
+            write(data, toUrl.apply(fileName));
+            return fileName;
+        }
+        String key = sha256(data) + "." + extension;
+        String[] claimed = new String[1];
+        // named only by the thread claiming the payload, so identical payloads
+        // do not use up file names
+        String fileName = writtenFiles.computeIfAbsent(key, k -> claimed[0] = newFileName.get());
+        if (claimed[0] != null) {
+            submit(new Write(data, toUrl.apply(fileName), key, fileName));
+        }
+        return fileName;
+    }
+
+    void write(byte[] data, URL url) {
+        submit(new Write(data, url, null, null));
+    }
+
+    private void submit(Write write) {
+        pending.register();
+        executor.execute(write);
+    }
+
+    /**
+     * Streams the channel to the URL on the calling thread and returns the
+     * number of bytes written. File channels are copied by the kernel, other
+     * channels in chunks straight into the target file; http uploads are
+     * streamed, with a fixed length when {@code size} is known, and are not
+     * retried as the source cannot be replayed
+     *
+     * @param size bytes left in the channel, or -1 if unknown
+     */
+    long transfer(ReadableByteChannel src, long size, URL url) throws IOException, URISyntaxException {
+        long written = 0;
+        if (url.getProtocol().equals("file")) {
+            File file = new File(url.toURI().getPath());
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (src instanceof FileChannel) {
+                    FileChannel in = (FileChannel) src;
+                    long start = in.position();
+                    long count = in.size() - start;
+                    while (written < count) {
+                        written += in.transferTo(start + written, count - written, channel);
+                    }
+                    in.position(start + written);
+                } else {
+                    long n;
+                    while ((n = channel.transferFrom(src, written, TRANSFER_CHUNK)) > 0) {
+                        written += n;
+                    }
+                }
+            }
+        } else {
+            try (OutputStream out = new URLOutputStream(url, size, http.connectTimeoutMillis,
+                    http.readTimeoutMillis)) {
+                WritableByteChannel channel = Channels.newChannel(out);
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                while (src.read(buffer) != -1) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        written += channel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                throw new IOException("Unable to write to report file item: ", e);
+            }
+        }
+        metrics.embedWritten(written);
+        return written;
+    }
+
+    /**
+     * Blocks until every attachment submitted before this call has been
+     * written and its handle closed, or the timeout elapses. Returns false,
+     * leaving the remaining writes running, on timeout
+     */
+    synchronized boolean flush(long timeout, TimeUnit unit) {
+        if (flushPhase < 0) {
+            flushPhase = pending.arrive();
+        }
+        try {
+            pending.awaitAdvanceInterruptibly(flushPhase, timeout, unit);
+            flushPhase = -1;
+            return true;
+        } catch (TimeoutException e) {
+            logger.log(Level.WARNING, "Gave up waiting for " + getPendingCount() + " embedded file(s) after "
+                    + timeout + " " + unit.toString().toLowerCase());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Number of attachments submitted and not yet written
+     */
+    int getPendingCount() {
+        return pending.getUnarrivedParties() - (flushPhase < 0 ? 1 : 0);
+    }
+
+    private void write(byte[] buf, URL url, int retries) throws IOException, URISyntaxException {
+        long backoff = http.backoffMillis;
+        for (int attempt = 0;; attempt++) {
+            try {
+                writeBytesToURL(buf, url);
+                return;
+            } catch (IOException e) {
+                if (attempt >= retries || !url.getProtocol().startsWith("http") || !isRetryable(e)) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted before retrying " + url);
+            }
+            backoff *= 2;
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            char[] hex = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isRetryable(IOException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof URLOutputStream.ResponseException) {
+                int code = ((URLOutputStream.ResponseException) t).getResponseCode();
+                return code >= 500 || code == 429;
+            }
+        }
+        return true;
+    }
+
+    private void writeBytesToURL(byte[] buf, URL url) throws IOException, URISyntaxException {
+        if (url.getProtocol().equals("file")) {
+            File file = new File(url.toURI().getPath());
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(buf);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            return;
+        }
+        try (OutputStream out = new URLOutputStream(url, buf.length, http.connectTimeoutMillis,
+                http.readTimeoutMillis)) {
+            out.write(buf);
+        } catch (IOException e) {
+            throw new IOException("Unable to write to report file item: ", e);
+        }
+    }
+
+    private final class Write implements Runnable {
+        private final byte[] data;
+        private final URL url;
+        // entry of the payload in the dedupe index, if any
+        private final String key;
+        private final String fileName;
+
+        Write(byte[] data, URL url, String key, String fileName) {
+            this.data = data;
+            this.url = url;
+            this.key = key;
+            this.fileName = fileName;
+        }
+
+        @Override
+        public void run() {
+            try {
+                write(data, url, http.retries);
+                metrics.embedWritten(data.length);
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                logger.log(Level.WARNING, "Unable to write embedded file " + url, e);
+                forget();
+            } finally {
+                pending.arriveAndDeregister();
+            }
+        }
+
+        void drop(String reason) {
+            logger.log(Level.WARNING, "Dropped embedded file " + url + ": " + reason);
+            forget();
+            pending.arriveAndDeregister();
+        }
+
+        boolean isLocal() {
+            return url.getProtocol().equals("file");
+        }
+
+        private void forget() {
+            if (key != null) {
+                writtenFiles.remove(key, fileName);
+            }
+        }
+    }
+
+    /**
+     * Runs the write of a local file on the submitting thread when the pool is
+     * saturated, as a local write is quick and the step links to the file.
+     * Uploads wait for room in the queue, up to the submit timeout, and are
+     * then dropped rather than run on the submitting thread
+     */
+    private final class WaitForRoomPolicy implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            Write write = (Write) r;
+            if (write.isLocal()) {
+                write.run();
+                return;
+            }
+            try {
+                if (!executor.getQueue().offer(r, submitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    write.drop("no room in the writer queue after " + submitTimeoutMillis + " ms");
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                write.drop("interrupted while waiting for room in the writer queue");
+                return;
+            }
+            // the core threads may have timed out while the queue was full
+            if (executor.getPoolSize() == 0) {
+                executor.prestartCoreThread();
+            }
+        }
+    }
+
+    static final class HttpSettings {
+        final int connectTimeoutMillis;
+        final int readTimeoutMillis;
+        final int retries;
+        final long backoffMillis;
+
+        HttpSettings(int connectTimeoutMillis, int readTimeoutMillis, int retries, long backoffMillis) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            this.readTimeoutMillis = readTimeoutMillis;
+            this.retries = retries;
+            this.backoffMillis = backoffMillis;
+        }
+    }
+}
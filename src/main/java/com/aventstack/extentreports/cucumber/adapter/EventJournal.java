@@ -0,0 +1,351 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import cucumber.api.HookTestStep;
+import cucumber.api.HookType;
+import cucumber.api.PickleStepTestStep;
+import cucumber.api.Result;
+import cucumber.api.TestCase;
+import cucumber.api.TestStep;
+import gherkin.pickles.Argument;
+import gherkin.pickles.PickleCell;
+import gherkin.pickles.PickleRow;
+import gherkin.pickles.PickleString;
+import gherkin.pickles.PickleTable;
+import gherkin.pickles.PickleTag;
+
+/**
+ * Append-only journal of the events the adapter handles, written through a
+ * memory-mapped file so that appending a record is a copy into the page cache,
+ * with no system call and no fsync. The journal survives the JVM dying at any
+ * point (the operating system writes the mapped pages back), though not the
+ * machine; {@link JournalReplay} rebuilds the report from it.
+ *
+ * <p>
+ * The file is a header followed by records, each an {@code int} length and a
+ * body starting with the record type and wall-clock time. The length is
+ * written after the body, so a record cut short by a crash reads as the zero
+ * padding that ends the journal. A negative length skips the unused end of a
+ * mapped region. Test cases are identified by an id assigned as they start,
+ * as the same scenario may run more than once.
+ * </p>
+ */
+final class EventJournal {
+
+    private static final Logger logger = Logger.getLogger(EventJournal.class.getName());
+
+    static final String FILE_PREFIX = "journal-";
+    static final String FILE_SUFFIX = ".bin";
+    static final long MAGIC = 0x4558544a524e4c31L; // EXTJRNL1
+    static final int HEADER_SIZE = 8;
+
+    static final byte SOURCE = 1;
+    static final byte CASE_STARTED = 2;
+    static final byte STEP_STARTED = 3;
+    static final byte STEP_FINISHED = 4;
+    static final byte CASE_FINISHED = 5;
+    static final byte WRITE = 6;
+    static final byte EMBED = 7;
+    static final byte LOG = 8;
+    static final byte SCREEN_CAPTURE = 9;
+    static final byte RUN_FINISHED = 10;
+
+    static final byte PICKLE_STEP = 0;
+    static final byte HOOK_STEP = 1;
+
+    static final byte NO_ARGUMENT = 0;
+    static final byte DOC_STRING = 1;
+    static final byte DATA_TABLE = 2;
+
+    private static final int REGION_SIZE = 8 * 1024 * 1024;
+
+    private final Path file;
+    private final int regionSize;
+    private final AtomicInteger nextCaseId = new AtomicInteger();
+    // not the monitor, so virtual threads appending do not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private boolean failed;
+    private boolean closed;
+
+    EventJournal(Path dir) {
+        this(dir, REGION_SIZE);
+    }
+
+    /**
+     * @param regionSize bytes mapped at a time
+     */
+    EventJournal(Path dir, int regionSize) {
+        this.file = dir.resolve(FILE_PREFIX + UUID.randomUUID() + FILE_SUFFIX);
+        this.regionSize = regionSize;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    void source(String uri, String source) {
+        append(record(SOURCE, out -> {
+            writeString(out, uri);
+            writeString(out, source);
+        }));
+    }
+
+    /**
+     * Records the start of the test case and returns the id its other records
+     * refer to it by
+     */
+    int caseStarted(TestCase testCase) {
+        int id = nextCaseId.incrementAndGet();
+        append(record(CASE_STARTED, out -> {
+            out.writeInt(id);
+            writeString(out, testCase.getUri());
+            out.writeInt(testCase.getLine());
+            writeString(out, testCase.getName());
+            List<PickleTag> tags = testCase.getTags();
+            out.writeInt(tags.size());
+            for (PickleTag tag : tags) {
+                writeString(out, tag.getName());
+            }
+        }));
+        return id;
+    }
+
+    void stepStarted(int caseId, TestStep testStep) {
+        append(record(STEP_STARTED, out -> {
+            out.writeInt(caseId);
+            writeString(out, testStep.getCodeLocation());
+            if (testStep instanceof HookTestStep) {
+                out.writeByte(HOOK_STEP);
+                HookType hookType = ((HookTestStep) testStep).getHookType();
+                writeString(out, hookType == null ? null : hookType.name());
+                return;
+            }
+            out.writeByte(PICKLE_STEP);
+            PickleStepTestStep step = (PickleStepTestStep) testStep;
+            writeString(out, step.getStepText());
+            out.writeInt(step.getStepLine());
+            writeString(out, step.getPattern());
+            writeArgument(out, step.getStepArgument());
+        }));
+    }
+
+    void stepFinished(int caseId, Result result) {
+        append(record(STEP_FINISHED, out -> {
+            out.writeInt(caseId);
+            writeResult(out, result);
+        }));
+    }
+
+    void caseFinished(int caseId, Result result) {
+        append(record(CASE_FINISHED, out -> {
+            out.writeInt(caseId);
+            writeResult(out, result);
+        }));
+    }
+
+    void write(int caseId, String text) {
+        append(record(WRITE, out -> {
+            out.writeInt(caseId);
+            writeString(out, text);
+        }));
+    }
+
+    /**
+     * Records an embed or attachment by the path of the file it was written
+     * to, not its content
+     */
+    void embed(int caseId, String mimeType, String path) {
+        append(record(EMBED, out -> {
+            out.writeInt(caseId);
+            writeString(out, mimeType);
+            writeString(out, path);
+        }));
+    }
+
+    void log(int caseId, String text) {
+        append(record(LOG, out -> {
+            out.writeInt(caseId);
+            writeString(out, text);
+        }));
+    }
+
+    void screenCapture(int caseId, String path, String title) {
+        append(record(SCREEN_CAPTURE, out -> {
+            out.writeInt(caseId);
+            writeString(out, path);
+            writeString(out, title);
+        }));
+    }
+
+    void runFinished() {
+        append(record(RUN_FINISHED, out -> {
+        }));
+    }
+
+    /**
+     * Truncates the file to the records written and closes it. Records
+     * appended afterwards are ignored
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            if (channel != null) {
+                long size = regionStart + region.position();
+                region = null;
+                try {
+                    channel.truncate(size);
+                } catch (IOException e) {
+                    // a file still mapped cannot be truncated on some platforms;
+                    // the zero padding reads as the end of the journal
+                    logger.log(Level.FINE, "Unable to truncate " + file, e);
+                }
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Unable to close " + file, e);
+                }
+                channel = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(byte[] body) {
+        if (body == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (failed || closed || !ensureCapacity(body.length)) {
+                return;
+            }
+            int start = region.position();
+            region.position(start + 4);
+            region.put(body);
+            region.putInt(start, body.length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Maps the next region when the record, plus room for the marker that
+     * skips the rest of a region, does not fit in the current one
+     */
+    private boolean ensureCapacity(int length) {
+        try {
+            if (channel == null) {
+                Files.createDirectories(file.getParent());
+                channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                map(0, length);
+                region.putLong(MAGIC);
+                return true;
+            }
+            if (region.remaining() >= 4 + length + 4) {
+                return true;
+            }
+            int skip = region.remaining();
+            region.putInt(region.position(), -skip);
+            map(regionStart + region.limit(), length);
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to write to event journal " + file + ", disabling it", e);
+            failed = true;
+            return false;
+        }
+    }
+
+    private void map(long position, int length) throws IOException {
+        regionStart = position;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                Math.max(regionSize, HEADER_SIZE + 4 + length + 4));
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] record(byte type, Body body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(type);
+            out.writeLong(System.currentTimeMillis());
+            body.write(out);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to encode journal record of type " + type, e);
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeArgument(DataOutputStream out, List<Argument> arguments) throws IOException {
+        Argument argument = arguments.isEmpty() ? null : arguments.get(0);
+        if (argument instanceof PickleString) {
+            out.writeByte(DOC_STRING);
+            writeString(out, ((PickleString) argument).getContent());
+            writeString(out, ((PickleString) argument).getContentType());
+        } else if (argument instanceof PickleTable) {
+            out.writeByte(DATA_TABLE);
+            List<PickleRow> rows = ((PickleTable) argument).getRows();
+            out.writeInt(rows.size());
+            for (PickleRow row : rows) {
+                out.writeInt(row.getCells().size());
+                for (PickleCell cell : row.getCells()) {
+                    writeString(out, cell.getValue());
+                }
+            }
+        } else {
+            out.writeByte(NO_ARGUMENT);
+        }
+    }
+
+    private static void writeResult(DataOutputStream out, Result result) throws IOException {
+        writeString(out, result.getStatus().name());
+        out.writeLong(result.getDuration() == null ? -1 : result.getDuration());
+        Throwable error = result.getError();
+        if (error == null) {
+            out.writeBoolean(false);
+            return;
+        }
+        out.writeBoolean(true);
+        StringWriter sw = new StringWriter();
+        error.printStackTrace(new PrintWriter(sw));
+        writeString(out, error.getClass().getName());
+        writeString(out, error.getMessage());
+        writeString(out, sw.toString());
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
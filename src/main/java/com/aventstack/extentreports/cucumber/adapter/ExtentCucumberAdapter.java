@@ -1,27 +1,41 @@
 package com.aventstack.extentreports.cucumber.adapter;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import com.aventstack.extentreports.ExtentTest;
-import com.aventstack.extentreports.GherkinKeyword;
 import com.aventstack.extentreports.MediaEntityBuilder;
 import com.aventstack.extentreports.Status;
 import com.aventstack.extentreports.gherkin.model.Asterisk;
 import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.model.Test;
 import com.aventstack.extentreports.service.ExtentService;
+import com.google.gson.GsonBuilder;
 
 import cucumber.api.HookTestStep;
 import cucumber.api.PickleStepTestStep;
@@ -31,6 +45,7 @@ import cucumber.api.event.ConcurrentEventListener;
 import cucumber.api.event.EmbedEvent;
 import cucumber.api.event.EventHandler;
 import cucumber.api.event.EventPublisher;
+import cucumber.api.event.TestCaseFinished;
 import cucumber.api.event.TestCaseStarted;
 import cucumber.api.event.TestRunFinished;
 import cucumber.api.event.TestSourceRead;
@@ -47,8 +62,6 @@ import gherkin.ast.Node;
 import gherkin.ast.ScenarioDefinition;
 import gherkin.ast.ScenarioOutline;
 import gherkin.ast.Step;
-import gherkin.ast.TableCell;
-import gherkin.ast.TableRow;
 import gherkin.ast.Tag;
 import gherkin.pickles.Argument;
 import gherkin.pickles.PickleCell;
@@ -56,6 +69,7 @@ import gherkin.pickles.PickleRow;
 import gherkin.pickles.PickleString;
 import gherkin.pickles.PickleTable;
 import gherkin.pickles.PickleTag;
+import io.cucumber.core.api.Scenario;
 
 /**
  * A port of Cucumber-JVM (MIT licensed) HtmlFormatter for Extent Framework
@@ -65,23 +79,95 @@ import gherkin.pickles.PickleTag;
  */
 public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAware {
 
+    private static final Logger logger = Logger.getLogger(ExtentCucumberAdapter.class.getName());
+
     private static final String SCREENSHOT_DIR_PROPERTY = "screenshot.dir";
     private static final String SCREENSHOT_REL_PATH_PROPERTY = "screenshot.rel.path";
+    private static final String SCREENSHOT_DEDUPE_PROPERTY = "screenshot.dedupe";
+    private static final String SCREENSHOT_WRITER_THREADS_PROPERTY = "screenshot.writer.threads";
+    private static final String SCREENSHOT_WRITER_QUEUE_SIZE_PROPERTY = "screenshot.writer.queue.size";
+    private static final int DEFAULT_SCREENSHOT_WRITER_THREADS = 2;
+    private static final int DEFAULT_SCREENSHOT_WRITER_QUEUE_SIZE = 64;
+    private static final String SCREENSHOT_WRITER_SUBMIT_TIMEOUT_PROPERTY = "screenshot.writer.submit.timeout.ms";
+    private static final int DEFAULT_SCREENSHOT_WRITER_SUBMIT_TIMEOUT = 60000;
+    private static final String SCREENSHOT_MIME_TYPES_PROPERTY = "screenshot.mime.types";
+    private static final String SCREENSHOT_WRITER_FLUSH_TIMEOUT_PROPERTY = "screenshot.writer.flush.timeout.seconds";
+    private static final int DEFAULT_SCREENSHOT_WRITER_FLUSH_TIMEOUT = 300;
+    private static final String SCREENSHOT_UPLOAD_CONNECT_TIMEOUT_PROPERTY = "screenshot.upload.connect.timeout.ms";
+    private static final String SCREENSHOT_UPLOAD_READ_TIMEOUT_PROPERTY = "screenshot.upload.read.timeout.ms";
+    private static final String SCREENSHOT_UPLOAD_RETRIES_PROPERTY = "screenshot.upload.retries";
+    private static final String SCREENSHOT_UPLOAD_BACKOFF_PROPERTY = "screenshot.upload.backoff.ms";
+    private static final int DEFAULT_SCREENSHOT_UPLOAD_CONNECT_TIMEOUT = 10000;
+    private static final int DEFAULT_SCREENSHOT_UPLOAD_READ_TIMEOUT = 30000;
+    private static final int DEFAULT_SCREENSHOT_UPLOAD_RETRIES = 3;
+    private static final int DEFAULT_SCREENSHOT_UPLOAD_BACKOFF = 500;
+    private static final String ASYNC_PROPERTY = "extent.adapter.async";
+    private static final String ASYNC_QUEUE_SIZE_PROPERTY = "extent.adapter.async.queue.size";
+    private static final String ASYNC_OVERFLOW_PROPERTY = "extent.adapter.async.overflow";
+    private static final int DEFAULT_ASYNC_QUEUE_SIZE = 8192;
+    private static final String FLUSH_FEATURES_PROPERTY = "extent.reporter.flush.features";
+    private static final String FLUSH_INTERVAL_PROPERTY = "extent.reporter.flush.interval";
+    private static final String SPILL_PROPERTY = "extent.adapter.spill";
+    private static final String SPILL_DIR_PROPERTY = "extent.adapter.spill.dir";
+    private static final String DEFAULT_SPILL_DIR = "test-output/spill/";
+    private static final String SHARD_PROPERTY = "extent.adapter.shard";
+    private static final String SHARD_DIR_PROPERTY = "extent.adapter.shard.dir";
+    private static final String DEFAULT_SHARD_DIR = "test-output/shards/";
+    private static final String JOURNAL_PROPERTY = "extent.adapter.journal";
+    private static final String JOURNAL_DIR_PROPERTY = "extent.adapter.journal.dir";
+    private static final String DEFAULT_JOURNAL_DIR = "test-output/journal/";
+    private static final String VIRTUAL_THREADS_PROPERTY = "extent.adapter.virtual.threads";
+    private static final String EXAMPLES_MAX_ROWS_PROPERTY = "extent.adapter.examples.max.rows";
+    private static final int DEFAULT_EXAMPLES_MAX_ROWS = 500;
+    private static final String LOG_MAX_BYTES_PROPERTY = "extent.adapter.log.max.bytes";
+    private static final String LOG_STEP_MAX_BYTES_PROPERTY = "extent.adapter.log.step.max.bytes";
+    private static final String LOG_RUN_MAX_BYTES_PROPERTY = "extent.adapter.log.run.max.bytes";
+    private static final String LOG_PREVIEW_LENGTH_PROPERTY = "extent.adapter.log.preview.length";
+    private static final int DEFAULT_LOG_PREVIEW_LENGTH = 1000;
+    private static final String METRICS_OUT_PROPERTY = "extent.adapter.metrics.out";
+    private static final String METRICS_FILE_NAME = "extent-metrics.json";
+    private static final String SPARK_START_PROPERTY = "extent.reporter.spark.start";
+    private static final String SPARK_OUT_PROPERTY = "extent.reporter.spark.out";
 
+    // feature nodes keyed by feature file uri, outline nodes by uri and line;
+    // nodes shared between runner threads are created atomically per key
     private static Map<String, ExtentTest> featureMap = new ConcurrentHashMap<>();
-    private static ThreadLocal<ExtentTest> featureTestThreadLocal = new InheritableThreadLocal<>();
     private static Map<String, ExtentTest> scenarioOutlineMap = new ConcurrentHashMap<>();
-    private static ThreadLocal<ExtentTest> scenarioOutlineThreadLocal = new InheritableThreadLocal<>();
-    private static ThreadLocal<ExtentTest> scenarioThreadLocal = new InheritableThreadLocal<>();
-    private static ThreadLocal<Boolean> isHookThreadLocal = new InheritableThreadLocal<>();
-    private static ThreadLocal<ExtentTest> stepTestThreadLocal = new InheritableThreadLocal<>();
+    // test case running on each runner thread, only read by the static
+    // accessors; events find their context through scenarioContextMap. Not
+    // inherited, so threads started by glue code, which may outlive the
+    // scenario, never log to it; they use the accessors taking a Scenario, as
+    // does virtual-thread mode, where it is not set
+    private static ThreadLocal<ScenarioContext> scenarioThreadLocal = new ThreadLocal<>();
+    private static boolean virtualThreads;
+    // running test cases keyed by Scenario#getId(), for the accessors taking a Scenario
+    private static final Map<String, ScenarioContext> scenarioIdMap = new ConcurrentHashMap<>();
+    // state of the current run, set up by the constructor and cleared when the
+    // run finishes; threads that outlive the run then update the model directly
+    private static volatile ReportEventQueue eventQueue;
+    private static volatile IncrementalFlush incrementalFlush;
+    private static volatile FeatureSpill featureSpill;
+    private static volatile FeatureShard featureShard;
+    private static volatile EventJournal eventJournal;
+    private static volatile FeatureProgress featureProgress;
+    private static volatile LogLimits logLimits;
+    private static final AdapterMetrics metrics = new AdapterMetrics();
+    // held by model updates (shared) and by flushes and spills (exclusive) when
+    // either is enabled in sync mode
+    private static volatile ReadWriteLock modelLock;
+
+    private final Map<TestCase, ScenarioContext> scenarioContextMap = new ConcurrentHashMap<>();
+    private final Map<ExtentTest, OutlineExamples> outlineExamplesMap = new ConcurrentHashMap<>();
+    private int examplesMaxRows;
 
     private String screenshotDir;
     private String screenshotRelPath;
+    private EmbedWriter embedWriter;
+    private int embedFlushTimeout;
     private boolean strict = false;
 
     @SuppressWarnings("serial")
-    private static final Map<String, String> MIME_TYPES_EXTENSIONS = new HashMap<String, String>() {
+    private static final Map<String, String> MIME_TYPES_EXTENSIONS = new ConcurrentHashMap<String, String>() {
         {
             put("image/bmp", "bmp");
             put("image/gif", "gif");
@@ -89,6 +175,11 @@ public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAwa
             put("image/png", "png");
             put("image/svg+xml", "svg");
             put("video/ogg", "ogg");
+            put("video/mp4", "mp4");
+            put("video/webm", "webm");
+            put("application/har+json", "har");
+            put("application/json", "json");
+            put("application/zip", "zip");
         }
     };
 
@@ -96,50 +187,131 @@ public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAwa
 
     private final TestSourcesModel testSources = new TestSourcesModel();
 
-    private ThreadLocal<String> currentFeatureFile = new ThreadLocal<>();
-    private ThreadLocal<ScenarioOutline> currentScenarioOutline = new InheritableThreadLocal<>();
-    private ThreadLocal<Examples> currentExamples = new InheritableThreadLocal<>();
+    // the registered plugin, which writes attachments added through the static API
+    private static volatile ExtentCucumberAdapter instance;
+
 
     private EventHandler<TestSourceRead> testSourceReadHandler = new EventHandler<TestSourceRead>() {
         @Override
         public void receive(TestSourceRead event) {
+            if (eventJournal != null) {
+                eventJournal.source(event.uri, event.source);
+            }
             handleTestSourceRead(event);
         }
     };
     private EventHandler<TestCaseStarted> caseStartedHandler = new EventHandler<TestCaseStarted>() {
         @Override
         public void receive(TestCaseStarted event) {
-            handleTestCaseStarted(event);
+            long start = System.nanoTime();
+            ScenarioContext context = new ScenarioContext(event.testCase);
+            scenarioContextMap.put(event.testCase, context);
+            scenarioIdMap.put(context.getId(), context);
+            if (eventJournal != null) {
+                context.setJournalId(eventJournal.caseStarted(event.testCase));
+            }
+            if (!virtualThreads) {
+                scenarioThreadLocal.set(context);
+            }
+            if (featureProgress != null) {
+                String uri = event.testCase.getUri();
+                featureProgress.started(uri, testSources.getSourceFile(uri));
+            }
+            dispatch(() -> handleTestCaseStarted(context), false);
+            metrics.getEventTimer(AdapterMetrics.Event.TEST_CASE_STARTED).recordSince(start);
+        }
+    };
+    private EventHandler<TestCaseFinished> caseFinishedHandler = new EventHandler<TestCaseFinished>() {
+        @Override
+        public void receive(TestCaseFinished event) {
+            long start = System.nanoTime();
+            ScenarioContext context = scenarioContextMap.get(event.testCase);
+            if (context != null) {
+                if (eventJournal != null) {
+                    eventJournal.caseFinished(context.getJournalId(), event.result);
+                }
+                scenarioIdMap.remove(context.getId(), context);
+            }
+            dispatch(() -> handleTestCaseFinished(event), false);
+            if (!virtualThreads && (context = scenarioThreadLocal.get()) != null
+                    && context.getTestCase() == event.testCase) {
+                // so a thread reused for another test case does not log to this one
+                scenarioThreadLocal.remove();
+            }
+            if (featureProgress != null && featureProgress.finished(event.testCase.getUri())) {
+                handleFeatureCompleted(event.testCase.getUri());
+            }
+            metrics.getEventTimer(AdapterMetrics.Event.TEST_CASE_FINISHED).recordSince(start);
         }
     };
     private EventHandler<TestStepStarted> stepStartedHandler = new EventHandler<TestStepStarted>() {
         @Override
         public void receive(TestStepStarted event) {
-            handleTestStepStarted(event);
+            long start = System.nanoTime();
+            ScenarioContext context = journaled(event.getTestCase());
+            if (context != null) {
+                eventJournal.stepStarted(context.getJournalId(), event.testStep);
+            }
+            dispatch(() -> handleTestStepStarted(event), false);
+            metrics.getEventTimer(AdapterMetrics.Event.TEST_STEP_STARTED).recordSince(start);
         }
     };
     private EventHandler<TestStepFinished> stepFinishedHandler = new EventHandler<TestStepFinished>() {
         @Override
         public void receive(TestStepFinished event) {
-            handleTestStepFinished(event);
+            long start = System.nanoTime();
+            ScenarioContext context = journaled(event.getTestCase());
+            if (context != null) {
+                eventJournal.stepFinished(context.getJournalId(), event.result);
+            }
+            dispatch(() -> handleTestStepFinished(event), false);
+            metrics.getEventTimer(AdapterMetrics.Event.TEST_STEP_FINISHED).recordSince(start);
         }
     };
     private EventHandler<EmbedEvent> embedEventhandler = new EventHandler<EmbedEvent>() {
         @Override
         public void receive(EmbedEvent event) {
-            handleEmbed(event);
+            long start = System.nanoTime();
+            ScenarioContext context = journaled(event.getTestCase());
+            String extension = MIME_TYPES_EXTENSIONS.get(event.mimeType);
+            if (context != null && extension != null) {
+                // the file is named here rather than by the report builder, so
+                // its journal record keeps its place among the test case's events
+                String path = screenshotRelPath + writeEmbed(event.data, extension);
+                eventJournal.embed(context.getJournalId(), event.mimeType, path);
+                dispatchEmbed(context, event.mimeType, path);
+            } else {
+                dispatch(() -> handleEmbed(event), true);
+            }
+            metrics.getEventTimer(AdapterMetrics.Event.EMBED).recordSince(start);
         }
     };
     private EventHandler<WriteEvent> writeEventhandler = new EventHandler<WriteEvent>() {
         @Override
         public void receive(WriteEvent event) {
-            handleWrite(event);
+            long start = System.nanoTime();
+            ScenarioContext context = journaled(event.getTestCase());
+            if (context != null && event.text != null && !event.text.isEmpty()) {
+                eventJournal.write(context.getJournalId(), event.text);
+            }
+            dispatch(() -> handleWrite(event), true);
+            metrics.getEventTimer(AdapterMetrics.Event.WRITE).recordSince(start);
         }
     };
     private EventHandler<TestRunFinished> runFinishedHandler = new EventHandler<TestRunFinished>() {
         @Override
         public void receive(TestRunFinished event) {
+            long start = System.nanoTime();
+            if (eventJournal != null) {
+                eventJournal.runFinished();
+            }
             finishReport();
+            metrics.getEventTimer(AdapterMetrics.Event.TEST_RUN_FINISHED).recordSince(start);
+            writeMetrics();
+            if (eventJournal != null) {
+                eventJournal.close();
+            }
+            clearRunState();
         }
     };
 
@@ -150,12 +322,121 @@ public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAwa
         prop = ExtentService.getProperty(SCREENSHOT_REL_PATH_PROPERTY);
         screenshotRelPath = prop == null || String.valueOf(prop).isEmpty() ? screenshotDir : String.valueOf(prop);
         screenshotRelPath = screenshotRelPath == null ? "" : screenshotRelPath;
+        examplesMaxRows = getIntProperty(EXAMPLES_MAX_ROWS_PROPERTY, DEFAULT_EXAMPLES_MAX_ROWS);
+        virtualThreads = "true".equals(String.valueOf(ExtentService.getProperty(VIRTUAL_THREADS_PROPERTY)));
+        embedWriter = new EmbedWriter(
+                getIntProperty(SCREENSHOT_WRITER_THREADS_PROPERTY, DEFAULT_SCREENSHOT_WRITER_THREADS),
+                getIntProperty(SCREENSHOT_WRITER_QUEUE_SIZE_PROPERTY, DEFAULT_SCREENSHOT_WRITER_QUEUE_SIZE),
+                getIntProperty(SCREENSHOT_WRITER_SUBMIT_TIMEOUT_PROPERTY, DEFAULT_SCREENSHOT_WRITER_SUBMIT_TIMEOUT),
+                "true".equals(String.valueOf(ExtentService.getProperty(SCREENSHOT_DEDUPE_PROPERTY))),
+                new EmbedWriter.HttpSettings(
+                        getIntProperty(SCREENSHOT_UPLOAD_CONNECT_TIMEOUT_PROPERTY, DEFAULT_SCREENSHOT_UPLOAD_CONNECT_TIMEOUT),
+                        getIntProperty(SCREENSHOT_UPLOAD_READ_TIMEOUT_PROPERTY, DEFAULT_SCREENSHOT_UPLOAD_READ_TIMEOUT),
+                        getIntProperty(SCREENSHOT_UPLOAD_RETRIES_PROPERTY, DEFAULT_SCREENSHOT_UPLOAD_RETRIES),
+                        getIntProperty(SCREENSHOT_UPLOAD_BACKOFF_PROPERTY, DEFAULT_SCREENSHOT_UPLOAD_BACKOFF)),
+                metrics);
+        embedFlushTimeout = getIntProperty(SCREENSHOT_WRITER_FLUSH_TIMEOUT_PROPERTY, DEFAULT_SCREENSHOT_WRITER_FLUSH_TIMEOUT);
+        prop = ExtentService.getProperty(SCREENSHOT_MIME_TYPES_PROPERTY);
+        if (prop != null) {
+            for (String mapping : String.valueOf(prop).split(",")) {
+                String[] pair = mapping.trim().split(":");
+                if (pair.length == 2) {
+                    registerMimeType(pair[0].trim(), pair[1].trim());
+                }
+            }
+        }
+        long maxLogBytes = getLongProperty(LOG_MAX_BYTES_PROPERTY, 0);
+        long maxStepLogBytes = getLongProperty(LOG_STEP_MAX_BYTES_PROPERTY, 0);
+        long maxRunLogBytes = getLongProperty(LOG_RUN_MAX_BYTES_PROPERTY, 0);
+        // so a runner started after another in the same JVM only uses the
+        // modes of its own configuration
+        clearRunState();
+        if (maxLogBytes > 0 || maxStepLogBytes > 0 || maxRunLogBytes > 0) {
+            logLimits = new LogLimits(maxLogBytes, maxStepLogBytes, maxRunLogBytes,
+                    getIntProperty(LOG_PREVIEW_LENGTH_PROPERTY, DEFAULT_LOG_PREVIEW_LENGTH),
+                    data -> screenshotRelPath + writeEmbed(data, "txt"));
+        }
+        if ("true".equals(String.valueOf(ExtentService.getProperty(ASYNC_PROPERTY)))) {
+            int queueSize = getIntProperty(ASYNC_QUEUE_SIZE_PROPERTY, DEFAULT_ASYNC_QUEUE_SIZE);
+            prop = ExtentService.getProperty(ASYNC_OVERFLOW_PROPERTY);
+            eventQueue = new ReportEventQueue(queueSize,
+                    ReportEventQueue.Overflow.fromString(prop == null ? null : String.valueOf(prop)));
+        }
+        int flushFeatures = getIntProperty(FLUSH_FEATURES_PROPERTY, 0);
+        int flushInterval = getIntProperty(FLUSH_INTERVAL_PROPERTY, 0);
+        boolean spill = "true".equals(String.valueOf(ExtentService.getProperty(SPILL_PROPERTY)));
+        if (spill && (flushFeatures > 0 || flushInterval > 0)) {
+            // spilled features are not in the report until the end of the run,
+            // so incremental flushes would write a report that shrinks
+            logger.warning(SPILL_PROPERTY + " cannot be combined with " + FLUSH_FEATURES_PROPERTY + " or "
+                    + FLUSH_INTERVAL_PROPERTY + ", the report is only flushed at the end of the run");
+            flushFeatures = 0;
+            flushInterval = 0;
+        }
+        if (flushFeatures > 0 || flushInterval > 0) {
+            incrementalFlush = new IncrementalFlush(flushFeatures, flushInterval, this::requestFlush);
+        }
+        if (spill) {
+            featureSpill = new FeatureSpill(ExtentService.getInstance().getReport(), spillDir());
+        }
+        if ("true".equals(String.valueOf(ExtentService.getProperty(SHARD_PROPERTY)))) {
+            prop = ExtentService.getProperty(SHARD_DIR_PROPERTY);
+            featureShard = new FeatureShard(Paths.get(prop == null || String.valueOf(prop).trim().isEmpty()
+                    ? DEFAULT_SHARD_DIR
+                    : String.valueOf(prop).trim()));
+        }
+        if ("true".equals(String.valueOf(ExtentService.getProperty(JOURNAL_PROPERTY)))) {
+            prop = ExtentService.getProperty(JOURNAL_DIR_PROPERTY);
+            eventJournal = new EventJournal(Paths.get(prop == null || String.valueOf(prop).trim().isEmpty()
+                    ? DEFAULT_JOURNAL_DIR
+                    : String.valueOf(prop).trim()));
+        }
+        if (flushFeatures > 0 || featureSpill != null || featureShard != null) {
+            featureProgress = new FeatureProgress();
+        }
+        if (eventQueue == null && (incrementalFlush != null || featureSpill != null || featureShard != null)) {
+            modelLock = new ReentrantReadWriteLock();
+        }
+        instance = this;
+    }
+
+    private static void clearRunState() {
+        eventQueue = null;
+        modelLock = null;
+        incrementalFlush = null;
+        featureSpill = null;
+        featureShard = null;
+        eventJournal = null;
+        featureProgress = null;
+        logLimits = null;
+    }
+
+    private static Path spillDir() {
+        Object prop = ExtentService.getProperty(SPILL_DIR_PROPERTY);
+        return Paths.get(prop == null || String.valueOf(prop).trim().isEmpty()
+                ? DEFAULT_SPILL_DIR
+                : String.valueOf(prop).trim());
+    }
+
+    private static int getIntProperty(String key, int defaultValue) {
+        Object prop = ExtentService.getProperty(key);
+        return prop == null || String.valueOf(prop).trim().isEmpty()
+                ? defaultValue
+                : Integer.parseInt(String.valueOf(prop).trim());
+    }
+
+    private static long getLongProperty(String key, long defaultValue) {
+        Object prop = ExtentService.getProperty(key);
+        return prop == null || String.valueOf(prop).trim().isEmpty()
+                ? defaultValue
+                : Long.parseLong(String.valueOf(prop).trim());
     }
 
     @Override
     public void setEventPublisher(EventPublisher publisher) {
         publisher.registerHandlerFor(TestSourceRead.class, testSourceReadHandler);
         publisher.registerHandlerFor(TestCaseStarted.class, caseStartedHandler);
+        publisher.registerHandlerFor(TestCaseFinished.class, caseFinishedHandler);
         publisher.registerHandlerFor(TestStepStarted.class, stepStartedHandler);
         publisher.registerHandlerFor(TestStepFinished.class, stepFinishedHandler);
         publisher.registerHandlerFor(EmbedEvent.class, embedEventhandler);
@@ -172,71 +453,171 @@ public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAwa
         testSources.addTestSourceReadEvent(event.uri, event);
     }
 
-    private synchronized void handleTestCaseStarted(TestCaseStarted event) {
-        handleStartOfFeature(event.testCase);
-        handleScenarioOutline(event.testCase);
-        createTestCase(event.testCase);
-        if (testSources.hasBackground(currentFeatureFile.get(), event.testCase.getLine())) {
+    /**
+     * Applies a report update either directly on the publishing thread, or on
+     * the report builder thread when the async mode is enabled
+     */
+    private static void dispatch(Runnable task, boolean droppable) {
+        ReportEventQueue queue = eventQueue;
+        ReadWriteLock lock = modelLock;
+        if (queue != null) {
+            queue.publish(task, droppable);
+        } else if (lock != null) {
+            long start = System.nanoTime();
+            lock.readLock().lock();
+            metrics.getLockWait().recordSince(start);
+            try {
+                task.run();
+            } finally {
+                lock.readLock().unlock();
+            }
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Applies a task that reads or detaches whole subtrees: queued behind the
+     * pending events in async mode, otherwise once in-flight updates on the
+     * runner threads have completed
+     */
+    private static void dispatchExclusive(Runnable task) {
+        ReportEventQueue queue = eventQueue;
+        ReadWriteLock lock = modelLock;
+        if (queue != null) {
+            queue.publish(task, false);
+        } else if (lock != null) {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            metrics.getLockWait().recordSince(start);
+            try {
+                task.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } else {
+            task.run();
+        }
+    }
+
+    private void handleTestCaseStarted(ScenarioContext context) {
+        context.setSource(testSources.getSourceFile(context.getTestCase().getUri()));
+        createFeature(context);
+        handleScenarioOutline(context);
+        createTestCase(context);
+        if (context.getSource() != null && context.getSource().hasBackground(context.getTestCase().getLine())) {
             // background
         }
     }
 
-    private synchronized void handleTestStepStarted(TestStepStarted event) {
-        isHookThreadLocal.set(false);
+    private void handleTestCaseFinished(TestCaseFinished event) {
+        scenarioContextMap.remove(event.testCase);
+    }
+
+    ScenarioContext getScenarioContext(TestCase testCase) {
+        return scenarioContextMap.get(testCase);
+    }
+
+    /**
+     * Returns the context of the test case when its events are journaled
+     */
+    private ScenarioContext journaled(TestCase testCase) {
+        return eventJournal == null ? null : scenarioContextMap.get(testCase);
+    }
+
+    private void handleTestStepStarted(TestStepStarted event) {
+        ScenarioContext context = getScenarioContext(event.getTestCase());
+        context.setHook(false);
+        context.setPendingHook(null);
 
         if (event.testStep instanceof HookTestStep) {
-            ExtentTest t = scenarioThreadLocal.get()
-                    .createNode(Asterisk.class, event.testStep.getCodeLocation());
-            stepTestThreadLocal.set(t);
-            isHookThreadLocal.set(true);
+            // most hooks report nothing, so their node is only created once
+            // they log, embed, write or fail (see currentStep)
+            setStep(context, null);
+            context.setPendingHook(event.testStep.getCodeLocation());
+            context.setHook(true);
         }
 
         if (event.testStep instanceof PickleStepTestStep) {
             PickleStepTestStep testStep = (PickleStepTestStep) event.testStep;
-            createTestStep(testStep);
+            createTestStep(context, testStep);
         }
     }
 
-    private synchronized void handleTestStepFinished(TestStepFinished event) {
-        updateResult(event.result);
+    private void setStep(ScenarioContext context, ExtentTest step) {
+        context.getLock().lock();
+        try {
+            context.setStep(step);
+        } finally {
+            context.getLock().unlock();
+        }
     }
 
-    private synchronized void updateResult(Result result) {
-        Test test = stepTestThreadLocal.get().getModel();
-        switch (result.getStatus().lowerCaseName()) {
+    /**
+     * Returns the step output is reported to, creating the node of the running
+     * hook the first time it is needed
+     */
+    private static ExtentTest currentStep(ScenarioContext context) {
+        context.getLock().lock();
+        try {
+            if (context.getStep() == null && context.getPendingHook() != null) {
+                context.setStep(context.getScenario().createNode(Asterisk.class, context.getPendingHook()));
+                context.setPendingHook(null);
+                metrics.nodeCreated();
+            }
+            return context.getStep();
+        } finally {
+            context.getLock().unlock();
+        }
+    }
+
+    private void handleTestStepFinished(TestStepFinished event) {
+        updateResult(getScenarioContext(event.getTestCase()), event.result);
+    }
+
+    private void updateResult(ScenarioContext context, Result result) {
+        String status = result.getStatus().lowerCaseName();
+        if (context.isHook() && context.getStep() == null && !"failed".equals(status)) {
+            // the hook reported nothing and needs no node
+            return;
+        }
+        ExtentTest step = currentStep(context);
+        Test test = step.getModel();
+        switch (status) {
             case "failed" :
-                stepTestThreadLocal.get().fail(result.getError());
+                step.fail(limitLog(context, result.getError()));
                 break;
             case "undefined" :
                 if (strict) {
-                    stepTestThreadLocal.get().fail("Step undefined");
+                    step.fail("Step undefined");
                     break;
                 }
-                stepTestThreadLocal.get().skip("Step undefined");
+                step.skip("Step undefined");
                 break;
             case "pending" :
             case "skipped" :
-                if (isHookThreadLocal.get()) {
-                    ExtentService.getInstance().removeTest(stepTestThreadLocal.get());
+                if (context.isHook()) {
+                    ExtentService.getInstance().removeTest(step);
+                    metrics.nodeRemoved();
                     break;
                 }
                 boolean currentEndingEventSkipped = test.hasLog()
                         ? test.getLogs().get(test.getLogs().size() - 1).getStatus() == Status.SKIP
                         : false;
                 if (result.getError() != null) {
-                    stepTestThreadLocal.get().skip(result.getError());
+                    step.skip(limitLog(context, result.getError()));
                 } else if (!currentEndingEventSkipped) {
                     String details = result.getErrorMessage() == null ? "Step skipped" : result.getErrorMessage();
-                    stepTestThreadLocal.get().skip(details);
+                    step.skip(details);
                 }
                 break;
             case "passed" :
-                if (stepTestThreadLocal.get() != null && !test.hasLog() && !isHookThreadLocal.get())
-                    stepTestThreadLocal.get().pass("");
-                if (stepTestThreadLocal.get() != null) {
-                    Boolean hasScreenCapture = test.hasLog() && test.getLogs().get(0).hasMedia();
-                    if (isHookThreadLocal.get() && !test.hasLog() && !hasScreenCapture)
-                        ExtentService.getInstance().removeTest(stepTestThreadLocal.get());
+                if (!test.hasLog() && !context.isHook())
+                    step.pass("");
+                Boolean hasScreenCapture = test.hasLog() && test.getLogs().get(0).hasMedia();
+                if (context.isHook() && !test.hasLog() && !hasScreenCapture) {
+                    ExtentService.getInstance().removeTest(step);
+                    metrics.nodeRemoved();
                 }
                 break;
             default :
@@ -244,52 +625,60 @@ public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAwa
         }
     }
 
-    private synchronized void handleEmbed(EmbedEvent event) {
+    private void handleEmbed(EmbedEvent event) {
+        ScenarioContext context = getScenarioContext(event.getTestCase());
         String mimeType = event.mimeType;
         String extension = MIME_TYPES_EXTENSIONS.get(mimeType);
         if (extension != null) {
-            StringBuilder fileName = new StringBuilder("embedded").append(EMBEDDED_INT.incrementAndGet()).append(".")
-                    .append(extension);
-            try {
-                URL url = toUrl(fileName.toString());
-                writeBytesToURL(event.data, url);
-                try {
-                    File f = new File(url.toURI());
-                    if (stepTestThreadLocal.get() == null) {
-                        ExtentTest t = scenarioThreadLocal.get()
-                                .createNode(Asterisk.class, "Embed");
-                        stepTestThreadLocal.set(t);
-                    }
-                    stepTestThreadLocal.get().info("",
-                            MediaEntityBuilder.createScreenCaptureFromPath(screenshotRelPath + f.getName()).build());
-                } catch (URISyntaxException e) {
-                    e.printStackTrace();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            String fileName = writeEmbed(event.data, extension);
+            attachEmbed(context, mimeType, screenshotRelPath + fileName);
         }
     }
 
-    private static void writeBytesToURL(byte[] buf, URL url) throws IOException {
-        OutputStream out = createReportFileOutputStream(url);
-        try {
-            out.write(buf);
-        } catch (IOException e) {
-            throw new IOException("Unable to write to report file item: ", e);
+    /**
+     * Adds an embed already written to the path to the current step, or to a
+     * node of its own outside of steps
+     */
+    void dispatchEmbed(ScenarioContext context, String mimeType, String path) {
+        dispatch(() -> attachEmbed(context, mimeType, path), true);
+    }
+
+    private void attachEmbed(ScenarioContext context, String mimeType, String path) {
+        if (currentStep(context) == null) {
+            ExtentTest t = context.getScenario()
+                    .createNode(Asterisk.class, "Embed");
+            metrics.nodeCreated();
+            setStep(context, t);
         }
+        addEmbed(context.getStep(), mimeType, path);
     }
 
-    private static OutputStream createReportFileOutputStream(URL url) {
-        try {
-            return new URLOutputStream(url);
-        } catch (IOException | URISyntaxException e) {
-            throw new CucumberException(e);
+    /**
+     * Images are shown inline, other attachments are linked
+     */
+    private static void addEmbed(ExtentTest step, String mimeType, String path) {
+        if (mimeType.startsWith("image/")) {
+            step.info("", MediaEntityBuilder.createScreenCaptureFromPath(path).build());
+        } else {
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            step.info("<a href='" + path + "' target='_blank'>" + name + "</a>");
         }
     }
 
+    /**
+     * Writes the payload as a new embedded file, or with the dedupe option, reuses
+     * the file already written for an identical payload
+     */
+    private String writeEmbed(byte[] data, String extension) {
+        return embedWriter.write(data, extension, () -> "embedded" + EMBEDDED_INT.incrementAndGet() + "." + extension,
+                this::toUrl);
+    }
+
     private URL toUrl(String fileName) {
         try {
+            if (screenshotDir.startsWith("http://") || screenshotDir.startsWith("https://")) {
+                return new URL(screenshotDir.endsWith("/") ? screenshotDir + fileName : screenshotDir + "/" + fileName);
+            }
             URL url = Paths.get(screenshotDir, fileName).toUri().toURL();
             return url;
         } catch (IOException e) {
@@ -300,43 +689,155 @@ public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAwa
     private void handleWrite(WriteEvent event) {
         String text = event.text;
         if (text != null && !text.isEmpty()) {
-            stepTestThreadLocal.get().info(text);
+            ScenarioContext context = getScenarioContext(event.getTestCase());
+            currentStep(context).info(limitLog(context, text));
         }
     }
 
-    private void finishReport() {
-        ExtentService.getInstance().flush();
+    private void requestFlush() {
+        dispatchExclusive(this::flushReport);
     }
 
-    @SuppressWarnings("unlikely-arg-type")
-    private synchronized void handleStartOfFeature(TestCase testCase) {
-        if (currentFeatureFile == null || !currentFeatureFile.equals(testCase.getUri())) {
-            currentFeatureFile.set(testCase.getUri());
-            createFeature(testCase);
+    private void handleFeatureCompleted(String uri) {
+        if (incrementalFlush != null) {
+            incrementalFlush.onFeatureCompleted();
+        }
+        if (featureSpill != null || featureShard != null) {
+            dispatchExclusive(() -> completeFeature(uri));
         }
     }
 
-    private synchronized void createFeature(TestCase testCase) {
-        Feature feature = testSources.getFeature(testCase.getUri());
+    /**
+     * Releases a completed feature: the registries drop their references, the
+     * subtree is appended to the shard and moved to a segment on disk
+     */
+    private void completeFeature(String uri) {
+        ExtentTest feature = featureMap.remove(uri);
         if (feature != null) {
-            if (featureMap.containsKey(feature.getName())) {
-                featureTestThreadLocal.set(featureMap.get(feature.getName()));
-                return;
+            int[] outlineLines = featureShard == null ? null : outlineLines(feature.getModel());
+            scenarioOutlineMap.values().removeIf(x -> x.getModel().getParent() == feature.getModel());
+            outlineExamplesMap.values().removeIf(x -> {
+                if (x.getOutline().getModel().getParent() != feature.getModel()) {
+                    return false;
+                }
+                x.render(this::renderExamples);
+                return true;
+            });
+            if (featureShard != null) {
+                featureShard.append(uri, feature.getModel(), outlineLines);
+            }
+            if (featureSpill != null) {
+                featureSpill.spill(feature.getModel());
+            }
+        }
+    }
+
+    /**
+     * Line of each scenario outline among the children of the feature, taken
+     * from the outline's key, and 0 for the other children
+     */
+    private static int[] outlineLines(Test feature) {
+        Map<Test, Integer> lines = new IdentityHashMap<>();
+        scenarioOutlineMap.forEach((key, outline) -> {
+            if (outline.getModel().getParent() == feature) {
+                lines.put(outline.getModel(), Integer.valueOf(key.substring(key.lastIndexOf(':') + 1)));
+            }
+        });
+        List<Test> children = new ArrayList<>(feature.getChildren());
+        int[] result = new int[children.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = lines.getOrDefault(children.get(i), 0);
+        }
+        return result;
+    }
+
+    private void flushReport() {
+        long start = System.nanoTime();
+        renderOutlineExamples();
+        embedWriter.flush(embedFlushTimeout, TimeUnit.SECONDS);
+        ExtentService.getInstance().flush();
+        metrics.getFlush().recordSince(start);
+    }
+
+    /**
+     * Writes the metrics summary next to the Spark report, or to
+     * {@value #METRICS_OUT_PROPERTY} when set
+     */
+    private void writeMetrics() {
+        Path path = getMetricsPath();
+        if (path == null) {
+            return;
+        }
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(metrics.toMap(), writer);
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to write the adapter metrics to " + path, e);
+        }
+    }
+
+    private static Path getMetricsPath() {
+        Object prop = ExtentService.getProperty(METRICS_OUT_PROPERTY);
+        if (prop != null && !String.valueOf(prop).trim().isEmpty()) {
+            return Paths.get(String.valueOf(prop).trim());
+        }
+        if (!"true".equals(String.valueOf(ExtentService.getProperty(SPARK_START_PROPERTY)))) {
+            return null;
+        }
+        prop = ExtentService.getProperty(SPARK_OUT_PROPERTY);
+        String out = prop == null || String.valueOf(prop).isEmpty() ? "test-output/spark/" : String.valueOf(prop);
+        Path spark = Paths.get(out);
+        Path dir = out.endsWith("/") || Files.isDirectory(spark) ? spark : spark.getParent();
+        return dir == null ? Paths.get(METRICS_FILE_NAME) : dir.resolve(METRICS_FILE_NAME);
+    }
+
+    private void finishReport() {
+        if (incrementalFlush != null) {
+            incrementalFlush.shutdown();
+        }
+        dispatchExclusive(() -> {
+            if (featureShard != null) {
+                renderOutlineExamples();
+                featureMap.forEach((uri, feature) -> featureShard.append(uri, feature.getModel(),
+                        outlineLines(feature.getModel())));
+                featureShard.close();
             }
-            if (featureTestThreadLocal.get() != null
-                    && featureTestThreadLocal.get().getModel().getName().equals(feature.getName())) {
-                return;
+            if (featureSpill != null) {
+                featureSpill.restore();
             }
-            ExtentTest t = ExtentService.getInstance()
-                    .createTest(com.aventstack.extentreports.gherkin.model.Feature.class, feature.getName(),
-                            feature.getDescription());
-            featureTestThreadLocal.set(t);
-            featureMap.put(feature.getName(), t);
-            List<String> tagList = createTagsList(feature.getTags());
-            tagList.forEach(featureTestThreadLocal.get()::assignCategory);
+            flushReport();
+        });
+        if (eventQueue != null) {
+            eventQueue.shutdown();
         }
     }
 
+    private void createFeature(ScenarioContext context) {
+        Feature feature = context.getSource() == null ? null : context.getSource().getFeature();
+        if (feature != null) {
+            String uri = context.getTestCase().getUri();
+            ExtentTest t = featureMap.get(uri);
+            if (t == null) {
+                t = featureMap.computeIfAbsent(uri, k -> createFeatureTest(feature));
+            }
+            context.setFeature(t);
+        }
+    }
+
+    private ExtentTest createFeatureTest(Feature feature) {
+        ExtentTest t = ExtentService.getInstance()
+                .createTest(com.aventstack.extentreports.gherkin.model.Feature.class, feature.getName(),
+                        feature.getDescription());
+        metrics.nodeCreated();
+        List<String> tagList = createTagsList(feature.getTags());
+        tagList.forEach(t::assignCategory);
+        return t;
+    }
+
     private List<String> createTagsList(List<Tag> tags) {
         List<String> tagList = new ArrayList<>();
         for (Tag tag : tags) {
@@ -345,54 +846,43 @@ public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAwa
         return tagList;
     }
 
-    private synchronized void handleScenarioOutline(TestCase testCase) {
-        TestSourcesModel.AstNode astNode = testSources.getAstNode(currentFeatureFile.get(), testCase.getLine());
+    private void handleScenarioOutline(ScenarioContext context) {
+        TestSourcesModel.AstNode astNode = context.getAstNode(context.getTestCase().getLine());
         if (TestSourcesModel.isScenarioOutlineScenario(astNode)) {
             ScenarioOutline scenarioOutline = (ScenarioOutline) TestSourcesModel.getScenarioDefinition(astNode);
-            if (currentScenarioOutline.get() == null
-                    || !currentScenarioOutline.get().getName().equals(scenarioOutline.getName())) {
-                scenarioOutlineThreadLocal.set(null);
-                createScenarioOutline(scenarioOutline);
-                currentScenarioOutline.set(scenarioOutline);
-                addOutlineStepsToReport(scenarioOutline);
-            }
-            Examples examples = (Examples) astNode.parent.node;
-            if (currentExamples.get() == null || !currentExamples.get().equals(examples)) {
-                currentExamples.set(examples);
-                createExamples(examples);
-            }
-        } else {
-            scenarioOutlineThreadLocal.set(null);
-            currentScenarioOutline.set(null);
-            currentExamples.set(null);
+            createScenarioOutline(context, scenarioOutline);
+            createExamples(context, (Examples) astNode.parent.node);
         }
     }
 
-    private synchronized void createScenarioOutline(ScenarioOutline scenarioOutline) {
-        if (scenarioOutlineMap.containsKey(scenarioOutline.getName())) {
-            scenarioOutlineThreadLocal.set(scenarioOutlineMap.get(scenarioOutline.getName()));
-            return;
-        }
-        if (scenarioOutlineThreadLocal.get() == null) {
-            ExtentTest t = featureTestThreadLocal.get()
-                    .createNode(com.aventstack.extentreports.gherkin.model.ScenarioOutline.class,
-                            scenarioOutline.getName(), scenarioOutline.getDescription());
-            scenarioOutlineThreadLocal.set(t);
-            scenarioOutlineMap.put(scenarioOutline.getName(), t);
-            List<String> featureTags = scenarioOutlineThreadLocal.get().getModel()
-                    .getParent().getCategorySet()
-                    .stream()
-                    .map(x -> x.getName())
-                    .collect(Collectors.toList());
-            scenarioOutline.getTags()
-                    .stream()
-                    .map(x -> x.getName())
-                    .filter(x -> !featureTags.contains(x))
-                    .forEach(scenarioOutlineThreadLocal.get()::assignCategory);
+    private void createScenarioOutline(ScenarioContext context, ScenarioOutline scenarioOutline) {
+        String key = context.getTestCase().getUri() + ":" + scenarioOutline.getLocation().getLine();
+        ExtentTest t = scenarioOutlineMap.get(key);
+        if (t == null) {
+            ExtentTest feature = context.getFeature();
+            t = scenarioOutlineMap.computeIfAbsent(key, k -> createScenarioOutlineTest(feature, scenarioOutline));
         }
+        context.setScenarioOutline(t);
     }
 
-    private synchronized void addOutlineStepsToReport(ScenarioOutline scenarioOutline) {
+    private ExtentTest createScenarioOutlineTest(ExtentTest feature, ScenarioOutline scenarioOutline) {
+        ExtentTest t = feature.createNode(com.aventstack.extentreports.gherkin.model.ScenarioOutline.class,
+                scenarioOutline.getName(), scenarioOutline.getDescription());
+        metrics.nodeCreated();
+        addOutlineStepsToReport(scenarioOutline);
+        List<String> featureTags = feature.getModel().getCategorySet()
+                .stream()
+                .map(x -> x.getName())
+                .collect(Collectors.toList());
+        scenarioOutline.getTags()
+                .stream()
+                .map(x -> x.getName())
+                .filter(x -> !featureTags.contains(x))
+                .forEach(t::assignCategory);
+        return t;
+    }
+
+    private void addOutlineStepsToReport(ScenarioOutline scenarioOutline) {
         for (Step step : scenarioOutline.getSteps()) {
             if (step.getArgument() != null) {
                 Node argument = step.getArgument();
@@ -411,68 +901,52 @@ public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAwa
         return docStringMap;
     }
 
-    private void createExamples(Examples examples) {
-        List<TableRow> rows = new ArrayList<>();
-        rows.add(examples.getTableHeader());
-        rows.addAll(examples.getTableBody());
-        String[][] data = getTable(rows);
-        String markup = MarkupHelper.createTable(data).getMarkup();
-        if (examples.getName() != null && !examples.getName().isEmpty()) {
-            markup = examples.getName() + markup;
-        }
-        markup = scenarioOutlineThreadLocal.get().getModel().getDescription() + markup;
-        scenarioOutlineThreadLocal.get().getModel().setDescription(markup);
+    private void createExamples(ScenarioContext context, Examples examples) {
+        outlineExamplesMap.computeIfAbsent(context.getScenarioOutline(), OutlineExamples::new).add(examples);
     }
 
-    private String[][] getTable(List<TableRow> rows) {
-        String data[][] = null;
-        int rowSize = rows.size();
-        for (int i = 0; i < rowSize; i++) {
-            TableRow row = rows.get(i);
-            List<TableCell> cells = row.getCells();
-            int cellSize = cells.size();
-            if (data == null) {
-                data = new String[rowSize][cellSize];
-            }
-            for (int j = 0; j < cellSize; j++) {
-                data[i][j] = cells.get(j).getValue();
-            }
-        }
-        return data;
+    private String renderExamples(Examples examples) {
+        return OutlineExamples.renderBlock(examples, examplesMaxRows);
+    }
+
+    private void renderOutlineExamples() {
+        outlineExamplesMap.values().forEach(x -> x.render(this::renderExamples));
     }
 
-    private synchronized void createTestCase(TestCase testCase) {
-        TestSourcesModel.AstNode astNode = testSources.getAstNode(currentFeatureFile.get(), testCase.getLine());
+    private void createTestCase(ScenarioContext context) {
+        TestCase testCase = context.getTestCase();
+        TestSourcesModel.AstNode astNode = context.getAstNode(testCase.getLine());
         if (astNode != null) {
             ScenarioDefinition scenarioDefinition = TestSourcesModel.getScenarioDefinition(astNode);
-            ExtentTest parent = scenarioOutlineThreadLocal.get() != null
-                    ? scenarioOutlineThreadLocal.get()
-                    : featureTestThreadLocal.get();
+            ExtentTest parent = context.getScenarioOutline() != null
+                    ? context.getScenarioOutline()
+                    : context.getFeature();
             ExtentTest t = parent.createNode(com.aventstack.extentreports.gherkin.model.Scenario.class,
                     scenarioDefinition.getName(), scenarioDefinition.getDescription());
-            scenarioThreadLocal.set(t);
+            metrics.nodeCreated();
+            context.setScenario(t);
         }
         if (!testCase.getTags().isEmpty()) {
             testCase.getTags()
                     .stream()
                     .map(PickleTag::getName)
-                    .forEach(scenarioThreadLocal.get()::assignCategory);
+                    .forEach(context.getScenario()::assignCategory);
         }
     }
 
-    private synchronized void createTestStep(PickleStepTestStep testStep) {
+    private void createTestStep(ScenarioContext context, PickleStepTestStep testStep) {
         String stepName = testStep.getStepText();
-        TestSourcesModel.AstNode astNode = testSources.getAstNode(currentFeatureFile.get(), testStep.getStepLine());
-        if (astNode != null) {
-            Step step = (Step) astNode.node;
+        TestSourcesModel.StepTemplate step = context.getStepTemplate(testStep.getStepLine());
+        if (step != null) {
             try {
                 String name = stepName == null || stepName.isEmpty()
-                        ? step.getText().replace("<", "&lt;").replace(">", "&gt;")
+                        ? step.escapedText
                         : stepName;
-                ExtentTest t = scenarioThreadLocal.get()
-                        .createNode(new GherkinKeyword(step.getKeyword().trim()), step.getKeyword() + name,
+                ExtentTest t = context.getScenario()
+                        .createNode(step.getGherkinKeyword(), step.keyword + name,
                                 testStep.getCodeLocation());
-                stepTestThreadLocal.set(t);
+                metrics.nodeCreated();
+                setStep(context, t);
             } catch (ClassNotFoundException e) {
                 e.printStackTrace();
             }
@@ -483,7 +957,7 @@ public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAwa
                 createDocStringMap((PickleString) argument);
             } else if (argument instanceof PickleTable) {
                 List<PickleRow> rows = ((PickleTable) argument).getRows();
-                stepTestThreadLocal.get().pass(MarkupHelper.createTable(getPickleTable(rows)).getMarkup());
+                context.getStep().pass(MarkupHelper.createTable(getPickleTable(rows)).getMarkup());
             }
         }
     }
@@ -513,20 +987,188 @@ public class ExtentCucumberAdapter implements ConcurrentEventListener, StrictAwa
 
     // the below additions are from PR #33
     // https://github.com/extent-framework/extentreports-cucumber4-adapter/pull/33
-    public static synchronized void addTestStepLog(String message) {
-        stepTestThreadLocal.get().info(message);
+    public static void addTestStepLog(String message) {
+        addTestStepLog(threadContext(), message);
+    }
+
+    public static void addTestStepScreenCaptureFromPath(String imagePath) throws IOException {
+        addTestStepScreenCapture(threadContext(), imagePath, null);
+    }
+
+    public static void addTestStepScreenCaptureFromPath(String imagePath, String title)
+            throws IOException {
+        addTestStepScreenCapture(threadContext(), imagePath, title);
+    }
+
+    /**
+     * Logs to the current step of the given scenario, whichever thread it runs
+     * on. Use in place of {@link #addTestStepLog(String)} in virtual-thread
+     * mode
+     */
+    public static void addTestStepLog(Scenario scenario, String message) {
+        addTestStepLog(scenarioContext(scenario), message);
     }
 
-    public static synchronized void addTestStepScreenCaptureFromPath(String imagePath) throws IOException {
-        stepTestThreadLocal.get().addScreenCaptureFromPath(imagePath);
+    public static void addTestStepScreenCaptureFromPath(Scenario scenario, String imagePath) throws IOException {
+        addTestStepScreenCapture(scenarioContext(scenario), imagePath, null);
     }
 
-    public static synchronized void addTestStepScreenCaptureFromPath(String imagePath, String title)
+    public static void addTestStepScreenCaptureFromPath(Scenario scenario, String imagePath, String title)
             throws IOException {
-        stepTestThreadLocal.get().addScreenCaptureFromPath(imagePath, title);
+        addTestStepScreenCapture(scenarioContext(scenario), imagePath, title);
     }
 
+    static void addTestStepLog(ScenarioContext context, String message) {
+        EventJournal journal = eventJournal;
+        if (context != null && journal != null) {
+            journal.log(context.getJournalId(), message);
+        }
+        onCurrentStep(context, x -> x.info(limitLog(context, message)));
+    }
+
+    static void addTestStepScreenCapture(ScenarioContext context, String imagePath, String title) {
+        EventJournal journal = eventJournal;
+        if (context != null && journal != null) {
+            journal.screenCapture(context.getJournalId(), imagePath, title);
+        }
+        onCurrentStep(context, x -> {
+            if (title == null) {
+                x.addScreenCaptureFromPath(imagePath);
+            } else {
+                x.addScreenCaptureFromPath(imagePath, title);
+            }
+        });
+    }
+
+    /**
+     * Streams the file to the screenshot directory and attaches it to the
+     * current step, without reading it into memory
+     */
+    public static void addTestStepAttachment(Path path, String mimeType) throws IOException {
+        addTestStepAttachment(threadContext(), path, mimeType);
+    }
+
+    /**
+     * Streams the remainder of the input to the screenshot directory and
+     * attaches it to the current step. The stream is not closed
+     */
+    public static void addTestStepAttachment(InputStream in, String mimeType) throws IOException {
+        addTestStepAttachment(threadContext(), Channels.newChannel(in), -1, mimeType);
+    }
+
+    /**
+     * Streams the remainder of the channel to the screenshot directory and
+     * attaches it to the current step. The channel is not closed
+     */
+    public static void addTestStepAttachment(ReadableByteChannel channel, String mimeType) throws IOException {
+        addTestStepAttachment(threadContext(), channel, channel instanceof FileChannel
+                ? ((FileChannel) channel).size() - ((FileChannel) channel).position()
+                : -1, mimeType);
+    }
+
+    public static void addTestStepAttachment(Scenario scenario, Path path, String mimeType) throws IOException {
+        addTestStepAttachment(scenarioContext(scenario), path, mimeType);
+    }
+
+    public static void addTestStepAttachment(Scenario scenario, InputStream in, String mimeType) throws IOException {
+        addTestStepAttachment(scenarioContext(scenario), Channels.newChannel(in), -1, mimeType);
+    }
+
+    private static void addTestStepAttachment(ScenarioContext context, Path path, String mimeType)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            addTestStepAttachment(context, channel, channel.size(), mimeType);
+        }
+    }
+
+    private static void addTestStepAttachment(ScenarioContext context, ReadableByteChannel channel, long size,
+            String mimeType) throws IOException {
+        ExtentCucumberAdapter adapter = instance;
+        if (adapter == null) {
+            throw new IllegalStateException("ExtentCucumberAdapter is not registered as a Cucumber plugin");
+        }
+        String extension = MIME_TYPES_EXTENSIONS.get(mimeType);
+        if (extension == null) {
+            throw new IllegalArgumentException("No file extension registered for MIME type " + mimeType);
+        }
+        String fileName = "embedded" + EMBEDDED_INT.incrementAndGet() + "." + extension;
+        try {
+            adapter.embedWriter.transfer(channel, size, adapter.toUrl(fileName));
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        String path = adapter.screenshotRelPath + fileName;
+        EventJournal journal = eventJournal;
+        if (context != null && journal != null) {
+            journal.embed(context.getJournalId(), mimeType, path);
+        }
+        onCurrentStep(context, x -> addEmbed(x, mimeType, path));
+    }
+
+    /**
+     * Maps a MIME type to the extension its attachments are written with, for
+     * both embeds and {@code addTestStepAttachment}. Attachments of unmapped
+     * types are not written
+     */
+    public static void registerMimeType(String mimeType, String extension) {
+        MIME_TYPES_EXTENSIONS.put(mimeType, extension);
+    }
+
+    /**
+     * Returns the adapter's overhead counters and timers for the run so far
+     */
+    public static AdapterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the step currently executing on this thread, or null in
+     * virtual-thread mode. In async mode, this waits until the report builder
+     * has caught up with the calling thread
+     */
     public static ExtentTest getCurrentStep() {
-        return stepTestThreadLocal.get();
+        return getCurrentStep(threadContext());
+    }
+
+    /**
+     * Returns the step the given scenario is currently executing, or null if
+     * the scenario is not running. In async mode, this waits until the report
+     * builder has caught up with the calling thread
+     */
+    public static ExtentTest getCurrentStep(Scenario scenario) {
+        return getCurrentStep(scenarioContext(scenario));
+    }
+
+    private static ExtentTest getCurrentStep(ScenarioContext context) {
+        ReportEventQueue queue = eventQueue;
+        if (queue != null) {
+            queue.drain();
+        }
+        return context == null ? null : currentStep(context);
+    }
+
+    private static ScenarioContext threadContext() {
+        return virtualThreads ? null : scenarioThreadLocal.get();
+    }
+
+    private static ScenarioContext scenarioContext(Scenario scenario) {
+        return scenario == null ? null : scenarioIdMap.get(scenario.getId());
+    }
+
+    private static String limitLog(ScenarioContext context, String text) {
+        LogLimits limits = logLimits;
+        return limits == null ? text : limits.limit(context, text);
+    }
+
+    private static Throwable limitLog(ScenarioContext context, Throwable t) {
+        LogLimits limits = logLimits;
+        return limits == null ? t : limits.limit(context, t);
+    }
+
+    private static void onCurrentStep(ScenarioContext context, Consumer<ExtentTest> action) {
+        if (context == null) {
+            return;
+        }
+        dispatch(() -> action.accept(currentStep(context)), true);
     }
 }
@@ -0,0 +1,33 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts down the test cases of each feature file. A feature is complete once
+ * as many of its test cases have finished as its source defines (scenarios
+ * plus examples rows); features filtered down by tags or lines never complete.
+ */
+final class FeatureProgress {
+
+    private final Map<String, AtomicInteger> remainingTestCases = new ConcurrentHashMap<>();
+
+    void started(String uri, TestSourcesModel.SourceFile source) {
+        if (source != null) {
+            remainingTestCases.computeIfAbsent(uri, k -> new AtomicInteger(source.getTestCaseCount()));
+        }
+    }
+
+    /**
+     * Returns true when the finished test case was the last one of its feature
+     */
+    boolean finished(String uri) {
+        AtomicInteger remaining = remainingTestCases.get(uri);
+        if (remaining != null && remaining.decrementAndGet() == 0) {
+            remainingTestCases.remove(uri);
+            return true;
+        }
+        return false;
+    }
+}
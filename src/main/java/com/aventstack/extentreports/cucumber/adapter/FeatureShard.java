@@ -0,0 +1,106 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.aventstack.extentreports.model.Test;
+import com.google.gson.Gson;
+
+/**
+ * Appends the features of this JVM to a shard: a JSON-lines file holding one
+ * {@link Entry} per line, named uniquely so forked JVMs can share a directory.
+ * Completed features are appended as they complete, the rest when the run
+ * finishes; {@link ShardMerger} combines the shards into a single report.
+ */
+final class FeatureShard {
+
+    private static final Logger logger = Logger.getLogger(FeatureShard.class.getName());
+
+    static final String FILE_PREFIX = "shard-";
+    static final String FILE_SUFFIX = ".jsonl";
+
+    private final Path file;
+    private final Gson gson = TestModels.createGson();
+    // not the monitor, so a virtual thread completing a feature does not pin
+    // its carrier while writing
+    private final ReentrantLock lock = new ReentrantLock();
+    private Writer writer;
+
+    FeatureShard(Path dir) {
+        this.file = dir.resolve(FILE_PREFIX + UUID.randomUUID() + FILE_SUFFIX);
+    }
+
+    /**
+     * Appends the feature as a single line, flushed so the shard stays
+     * readable up to the last complete feature if the JVM dies
+     *
+     * @param outlineLines line of each scenario outline among the feature's
+     *        children, 0 for the other children
+     */
+    void append(String uri, Test feature, int[] outlineLines) {
+        String line;
+        try {
+            // serialized whole first, so a failure leaves no partial line
+            line = gson.toJson(new Entry(uri, feature, outlineLines), Entry.class);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to serialize feature " + feature.getName() + " for " + file, e);
+            return;
+        }
+        lock.lock();
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+            }
+            writer.write(line);
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Unable to append feature " + feature.getName() + " to " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Unable to close " + file, e);
+                }
+                writer = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A line of a shard. Features are identified across shards by the uri of
+     * their feature file, and scenario outlines by their line in it
+     */
+    static final class Entry {
+        String uri;
+        Test feature;
+        // aligned with the feature's children; absent from older shards
+        int[] outlineLines;
+
+        Entry(String uri, Test feature, int[] outlineLines) {
+            this.uri = uri;
+            this.feature = feature;
+            this.outlineLines = outlineLines;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.aventstack.extentreports.model.Report;
+import com.aventstack.extentreports.model.Test;
+import com.google.gson.Gson;
+
+/**
+ * Moves completed feature subtrees out of the heap. A spilled feature is
+ * written to its own segment in the JsonFormatter layout (with dates kept to
+ * the millisecond) and detached from the report; {@link #restore()} reads the
+ * segments back in their original order before the final flush, deletes them
+ * and, once empty, the directory. Segment names carry an id per run, so JVMs
+ * running in parallel can share the directory.
+ *
+ * <p>
+ * Spilling bounds the heap while the run is in progress only: the reporters
+ * render from the complete model, so the final flush holds every feature
+ * again.
+ * </p>
+ *
+ * <p>
+ * Features are detached from the model directly rather than through
+ * {@code ExtentReports#removeTest}, so observers such as Klov, which have
+ * already persisted the feature, are not told that it was removed.
+ * </p>
+ */
+final class FeatureSpill {
+
+    private static final Logger logger = Logger.getLogger(FeatureSpill.class.getName());
+
+    private final Report report;
+    private final Path dir;
+    private final String prefix = "feature-" + UUID.randomUUID() + "-";
+    private final Gson gson = TestModels.createGson();
+    private final List<Segment> segments = new ArrayList<>();
+
+    FeatureSpill(Report report, Path dir) {
+        this.report = report;
+        this.dir = dir;
+    }
+
+    /**
+     * Writes the feature to a segment and detaches it from the report. The
+     * feature stays in memory if it cannot be serialized or its segment
+     * cannot be written
+     */
+    void spill(Test feature) {
+        Path file = dir.resolve(prefix + feature.getId() + ".json");
+        try {
+            // serialized whole first, so a failure leaves no partial segment
+            byte[] json = gson.toJson(feature).getBytes(StandardCharsets.UTF_8);
+            Files.createDirectories(dir);
+            Files.write(file, json);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to spill feature " + feature.getName() + ", keeping it in memory", e);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException x) {
+                logger.log(Level.FINE, "Unable to delete " + file, x);
+            }
+            return;
+        }
+        report.getTestList().remove(feature);
+        TestModels.detach(report, feature);
+        synchronized (segments) {
+            segments.add(new Segment(feature.getId(), file));
+        }
+    }
+
+    /**
+     * Re-attaches every spilled feature, in the order the features were
+     * created, and removes the segments and the directory if nothing else is
+     * left in it
+     */
+    void restore() {
+        Map<Test, Integer> order = new IdentityHashMap<>();
+        synchronized (segments) {
+            for (Segment segment : segments) {
+                try (Reader reader = Files.newBufferedReader(segment.path, StandardCharsets.UTF_8)) {
+                    Test feature = gson.fromJson(reader, Test.class);
+                    TestModels.attach(report, feature);
+                    order.put(feature, segment.order);
+                    report.getTestList().add(feature);
+                    Files.delete(segment.path);
+                } catch (IOException | RuntimeException e) {
+                    logger.log(Level.SEVERE, "Unable to restore spilled feature from " + segment.path, e);
+                }
+            }
+            segments.clear();
+        }
+        try {
+            Files.deleteIfExists(dir);
+        } catch (DirectoryNotEmptyException e) {
+            // shared with other runs, or kept segments that failed to restore
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Unable to delete " + dir, e);
+        }
+        report.getTestList().sort(Comparator.comparingInt(t -> order.getOrDefault(t, t.getId())));
+    }
+
+    private static final class Segment {
+        final int order;
+        final Path path;
+
+        Segment(int order, Path path) {
+            this.order = order;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Flushes the report while the run is in progress, every N completed features
+ * and/or every T seconds, so a killed JVM only loses what happened since the
+ * last flush.
+ *
+ * <p>
+ * Features filtered down by tags or lines never complete (see
+ * {@link FeatureProgress}) and are only covered by the timer.
+ * </p>
+ */
+final class IncrementalFlush {
+
+    private static final Logger logger = Logger.getLogger(IncrementalFlush.class.getName());
+
+    private final int featureThreshold;
+    private final Runnable flushRequest;
+    private final AtomicInteger completedFeatures = new AtomicInteger();
+    private final ScheduledExecutorService timer;
+
+    IncrementalFlush(int featureThreshold, int intervalSeconds, Runnable flushRequest) {
+        this.featureThreshold = featureThreshold;
+        this.flushRequest = flushRequest;
+        if (intervalSeconds > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "extent-incremental-flush");
+                t.setDaemon(true);
+                return t;
+            });
+            timer.scheduleWithFixedDelay(this::flush, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            timer = null;
+        }
+    }
+
+    void onFeatureCompleted() {
+        if (featureThreshold > 0 && completedFeatures.incrementAndGet() % featureThreshold == 0) {
+            flush();
+        }
+    }
+
+    void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    private void flush() {
+        try {
+            flushRequest.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to flush the report", e);
+        }
+    }
+}
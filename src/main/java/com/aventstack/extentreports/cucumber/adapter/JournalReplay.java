@@ -0,0 +1,500 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.aventstack.extentreports.model.Log;
+import com.aventstack.extentreports.model.Test;
+import com.aventstack.extentreports.service.ExtentService;
+
+import cucumber.api.HookTestStep;
+import cucumber.api.HookType;
+import cucumber.api.PickleStepTestStep;
+import cucumber.api.Result;
+import cucumber.api.TestCase;
+import cucumber.api.TestStep;
+import cucumber.api.event.Event;
+import cucumber.api.event.EventHandler;
+import cucumber.api.event.EventPublisher;
+import cucumber.api.event.TestCaseFinished;
+import cucumber.api.event.TestCaseStarted;
+import cucumber.api.event.TestRunFinished;
+import cucumber.api.event.TestSourceRead;
+import cucumber.api.event.TestStepFinished;
+import cucumber.api.event.TestStepStarted;
+import cucumber.api.event.WriteEvent;
+import gherkin.pickles.Argument;
+import gherkin.pickles.PickleCell;
+import gherkin.pickles.PickleLocation;
+import gherkin.pickles.PickleRow;
+import gherkin.pickles.PickleStep;
+import gherkin.pickles.PickleString;
+import gherkin.pickles.PickleTable;
+import gherkin.pickles.PickleTag;
+
+/**
+ * Rebuilds the report of a run from its {@link EventJournal}, for runs whose
+ * JVM died before the report was flushed. The journaled events are published
+ * to a new {@link ExtentCucumberAdapter}, which builds the model and flushes
+ * it to the reporters configured in {@code extent.properties} (or system
+ * properties) as it would have at the end of the run.
+ *
+ * <pre>
+ * java -cp ... com.aventstack.extentreports.cucumber.adapter.JournalReplay &lt;journal file&gt;
+ * </pre>
+ *
+ * <p>
+ * Embeds are journaled as the files they were written to, which are linked
+ * again rather than rewritten. Start and end times of the report's tests and
+ * logs are taken from the journal. Steps and test cases the run did not finish
+ * are failed.
+ * </p>
+ */
+public final class JournalReplay {
+
+    private final ExtentCucumberAdapter adapter;
+    private final Publisher publisher = new Publisher();
+    private final Map<Integer, ReplayedTestCase> testCases = new TreeMap<>();
+    // tests, logs and times created while replaying are at or after this
+    private final Date replayStart = new Date();
+    private long lastTime;
+
+    private JournalReplay() {
+        System.setProperty("extent.adapter.journal", "false");
+        System.setProperty("extent.adapter.async", "false");
+        ExtentService.getInstance().setReportUsesManualConfiguration(true);
+        adapter = new ExtentCucumberAdapter("");
+        adapter.setEventPublisher(publisher);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JournalReplay <journal file>");
+            System.exit(2);
+        }
+        int count = replay(Paths.get(args[0]));
+        System.out.println("Replayed " + count + " test case(s) from " + args[0]);
+    }
+
+    /**
+     * Replays the journal into the report and flushes it. Returns the number
+     * of test cases replayed
+     */
+    public static int replay(Path journal) throws IOException {
+        JournalReplay replay = new JournalReplay();
+        int count = replay.read(journal);
+        replay.finish();
+        return count;
+    }
+
+    private int read(Path journal) throws IOException {
+        int[] count = new int[1];
+        readRecords(journal, (type, in) -> {
+            if (type == EventJournal.CASE_STARTED) {
+                count[0]++;
+            }
+            apply(type, in);
+        });
+        return count[0];
+    }
+
+    /**
+     * Hands each record of the journal, in order, to the handler, with the
+     * body following its type. Reading stops at the zero padding ending the
+     * journal, a record cut short or the end of the run
+     */
+    static void readRecords(Path journal, RecordHandler handler) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            if (in.readLong() != EventJournal.MAGIC) {
+                throw new IOException(journal + " is not an event journal");
+            }
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0) {
+                    try {
+                        skipFully(in, -length - 4);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    continue;
+                }
+                byte[] body = new byte[length];
+                try {
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    break;
+                }
+                byte type = body[0];
+                if (type < EventJournal.SOURCE || type >= EventJournal.RUN_FINISHED) {
+                    break;
+                }
+                handler.record(type, new DataInputStream(new ByteArrayInputStream(body, 1, length - 1)));
+            }
+        }
+    }
+
+    interface RecordHandler {
+        void record(byte type, DataInputStream in) throws IOException;
+    }
+
+    private static void skipFully(DataInputStream in, int n) throws IOException {
+        int skipped = 0;
+        while (skipped < n) {
+            int k = in.skipBytes(n - skipped);
+            if (k <= 0) {
+                throw new EOFException();
+            }
+            skipped += k;
+        }
+    }
+
+    private void apply(byte type, DataInputStream in) throws IOException {
+        long time = in.readLong();
+        lastTime = time;
+        if (type == EventJournal.SOURCE) {
+            String uri = readString(in);
+            publisher.publish(new TestSourceRead(0L, time, uri, readString(in)));
+            return;
+        }
+        int id = in.readInt();
+        if (type == EventJournal.CASE_STARTED) {
+            ReplayedTestCase testCase = readTestCase(in);
+            testCases.put(id, testCase);
+            publisher.publish(new TestCaseStarted(0L, time, testCase));
+            stamp(adapter.getScenarioContext(testCase), time, false);
+            return;
+        }
+        ReplayedTestCase testCase = testCases.get(id);
+        ScenarioContext context = testCase == null ? null : adapter.getScenarioContext(testCase);
+        if (context == null) {
+            return;
+        }
+        switch (type) {
+            case EventJournal.STEP_STARTED :
+                testCase.running = readTestStep(in);
+                publisher.publish(new TestStepStarted(0L, time, testCase, testCase.running));
+                break;
+            case EventJournal.STEP_FINISHED :
+                publisher.publish(new TestStepFinished(0L, time, testCase, testCase.running, readResult(in)));
+                break;
+            case EventJournal.CASE_FINISHED :
+                publisher.publish(new TestCaseFinished(0L, time, testCase, readResult(in)));
+                testCases.remove(id);
+                stamp(context, time, false);
+                return;
+            case EventJournal.WRITE :
+                publisher.publish(new WriteEvent(0L, time, testCase, readString(in)));
+                break;
+            case EventJournal.EMBED :
+                String mimeType = readString(in);
+                adapter.dispatchEmbed(context, mimeType, readString(in));
+                break;
+            case EventJournal.LOG :
+                ExtentCucumberAdapter.addTestStepLog(context, readString(in));
+                break;
+            case EventJournal.SCREEN_CAPTURE :
+                String path = readString(in);
+                ExtentCucumberAdapter.addTestStepScreenCapture(context, path, readString(in));
+                break;
+            default :
+                return;
+        }
+        stamp(context, time, true);
+    }
+
+    /**
+     * Fails whatever the run left unfinished and ends the run, which flushes
+     * the report
+     */
+    private void finish() {
+        Result interrupted = new Result(Result.Type.FAILED, 0L,
+                new ReplayedThrowable(IllegalStateException.class.getName(),
+                        "The run ended before this step finished", null));
+        for (ReplayedTestCase testCase : new ArrayList<>(testCases.values())) {
+            ScenarioContext context = adapter.getScenarioContext(testCase);
+            if (testCase.running != null) {
+                publisher.publish(new TestStepFinished(0L, lastTime, testCase, testCase.running, interrupted));
+                stamp(context, lastTime, true);
+            }
+            publisher.publish(new TestCaseFinished(0L, lastTime, testCase, interrupted));
+            stamp(context, lastTime, false);
+        }
+        testCases.clear();
+        publisher.publish(new TestRunFinished(0L, lastTime));
+    }
+
+    /**
+     * Moves the times of the tests and logs the last record touched from the
+     * replay to the journal's clock
+     */
+    private void stamp(ScenarioContext context, long time, boolean step) {
+        if (context == null) {
+            return;
+        }
+        Date date = new Date(time);
+        if (step && context.getStep() != null) {
+            stamp(context.getStep().getModel(), date);
+        }
+        if (context.getScenario() != null) {
+            for (Test t = context.getScenario().getModel(); t != null; t = t.getParent()) {
+                stamp(t, date);
+            }
+        }
+    }
+
+    private void stamp(Test test, Date date) {
+        if (!test.getStartTime().before(replayStart)) {
+            test.setStartTime(date);
+        }
+        if (!test.getEndTime().before(replayStart) || test.getEndTime().before(date)) {
+            test.setEndTime(date);
+        }
+        for (Log log : test.getLogs()) {
+            if (!log.getTimestamp().before(replayStart)) {
+                log.setTimestamp(date);
+            }
+        }
+    }
+
+    private static ReplayedTestCase readTestCase(DataInputStream in) throws IOException {
+        String uri = readString(in);
+        int line = in.readInt();
+        String name = readString(in);
+        int tagCount = in.readInt();
+        List<PickleTag> tags = new ArrayList<>(tagCount);
+        for (int i = 0; i < tagCount; i++) {
+            tags.add(new PickleTag(new PickleLocation(line, 1), readString(in)));
+        }
+        return new ReplayedTestCase(uri, line, name, tags);
+    }
+
+    private static TestStep readTestStep(DataInputStream in) throws IOException {
+        String codeLocation = readString(in);
+        if (in.readByte() == EventJournal.HOOK_STEP) {
+            String hookType = readString(in);
+            return new ReplayedHookStep(codeLocation, hookType == null ? null : HookType.valueOf(hookType));
+        }
+        String text = readString(in);
+        int line = in.readInt();
+        String pattern = readString(in);
+        return new ReplayedPickleStep(codeLocation, text, line, pattern, readArgument(in, line));
+    }
+
+    private static List<Argument> readArgument(DataInputStream in, int line) throws IOException {
+        switch (in.readByte()) {
+            case EventJournal.DOC_STRING :
+                String content = readString(in);
+                return Collections.singletonList(new PickleString(new PickleLocation(line + 1, 1), content,
+                        readString(in)));
+            case EventJournal.DATA_TABLE :
+                int rowCount = in.readInt();
+                List<PickleRow> rows = new ArrayList<>(rowCount);
+                for (int i = 0; i < rowCount; i++) {
+                    int cellCount = in.readInt();
+                    List<PickleCell> cells = new ArrayList<>(cellCount);
+                    for (int j = 0; j < cellCount; j++) {
+                        cells.add(new PickleCell(new PickleLocation(line + 1 + i, j + 1), readString(in)));
+                    }
+                    rows.add(new PickleRow(cells));
+                }
+                return Collections.singletonList(new PickleTable(rows));
+            default :
+                return Collections.emptyList();
+        }
+    }
+
+    private static Result readResult(DataInputStream in) throws IOException {
+        Result.Type status = Result.Type.valueOf(readString(in));
+        long duration = in.readLong();
+        Throwable error = null;
+        if (in.readBoolean()) {
+            String type = readString(in);
+            String message = readString(in);
+            error = new ReplayedThrowable(type, message, readString(in));
+        }
+        return new Result(status, Math.max(duration, 0L), error);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Delivers events synchronously to the handlers the adapter registered
+     */
+    private static final class Publisher implements EventPublisher {
+        private final Map<Class<?>, List<EventHandler<?>>> handlers = new HashMap<>();
+
+        @Override
+        public <T extends Event> void registerHandlerFor(Class<T> eventType, EventHandler<T> handler) {
+            handlers.computeIfAbsent(eventType, k -> new ArrayList<>()).add(handler);
+        }
+
+        @Override
+        public <T extends Event> void removeHandlerFor(Class<T> eventType, EventHandler<T> handler) {
+            List<EventHandler<?>> list = handlers.get(eventType);
+            if (list != null) {
+                list.remove(handler);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        <T extends Event> void publish(T event) {
+            List<EventHandler<?>> list = handlers.get(event.getClass());
+            if (list != null) {
+                for (EventHandler<?> handler : list) {
+                    ((EventHandler<T>) handler).receive(event);
+                }
+            }
+        }
+    }
+
+    private static final class ReplayedTestCase implements TestCase {
+        private final String uri;
+        private final int line;
+        private final String name;
+        private final List<PickleTag> tags;
+        TestStep running;
+
+        ReplayedTestCase(String uri, int line, String name, List<PickleTag> tags) {
+            this.uri = uri;
+            this.line = line;
+            this.name = name;
+            this.tags = tags;
+        }
+
+        @Override
+        public int getLine() {
+            return line;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getScenarioDesignation() {
+            return uri + ":" + line + " # Scenario: " + name;
+        }
+
+        @Override
+        public List<PickleTag> getTags() {
+            return tags;
+        }
+
+        @Override
+        public List<TestStep> getTestSteps() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String getUri() {
+            return uri;
+        }
+    }
+
+    private static final class ReplayedHookStep implements HookTestStep {
+        private final String codeLocation;
+        private final HookType hookType;
+
+        ReplayedHookStep(String codeLocation, HookType hookType) {
+            this.codeLocation = codeLocation;
+            this.hookType = hookType;
+        }
+
+        @Override
+        public String getCodeLocation() {
+            return codeLocation;
+        }
+
+        @Override
+        public HookType getHookType() {
+            return hookType;
+        }
+    }
+
+    private static final class ReplayedPickleStep implements PickleStepTestStep {
+        private final String codeLocation;
+        private final String text;
+        private final int line;
+        private final String pattern;
+        private final List<Argument> argument;
+
+        ReplayedPickleStep(String codeLocation, String text, int line, String pattern, List<Argument> argument) {
+            this.codeLocation = codeLocation;
+            this.text = text;
+            this.line = line;
+            this.pattern = pattern;
+            this.argument = argument;
+        }
+
+        @Override
+        public String getCodeLocation() {
+            return codeLocation;
+        }
+
+        @Override
+        public String getPattern() {
+            return pattern;
+        }
+
+        @Override
+        public PickleStep getPickleStep() {
+            return null;
+        }
+
+        @Override
+        public List<cucumber.api.Argument> getDefinitionArgument() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Argument> getStepArgument() {
+            return argument;
+        }
+
+        @Override
+        public int getStepLine() {
+            return line;
+        }
+
+        @Override
+        public String getStepLocation() {
+            return null;
+        }
+
+        @Override
+        public String getStepText() {
+            return text;
+        }
+    }
+}
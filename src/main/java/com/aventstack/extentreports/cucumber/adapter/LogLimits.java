@@ -0,0 +1,167 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Byte budgets for text added to the report: per log, per step and per run,
+ * each unlimited when 0. Text that does not fit is written once to a side
+ * file, and the report keeps an escaped preview with a link to the file;
+ * oversized failures keep their type and stack frames but carry a truncated
+ * message.
+ *
+ * <p>
+ * Sizes are counted as UTF-8 bytes. Previews are always added and count
+ * against the run budget, but are not refused by it.
+ * </p>
+ */
+final class LogLimits {
+
+    private final long maxLogBytes;
+    private final long maxStepBytes;
+    private final long maxRunBytes;
+    private final int previewLength;
+    private final Function<byte[], String> sideFileWriter;
+    private final AtomicLong runBytes = new AtomicLong();
+
+    /**
+     * @param sideFileWriter writes the full text and returns the path the
+     *        report links to
+     */
+    LogLimits(long maxLogBytes, long maxStepBytes, long maxRunBytes, int previewLength,
+            Function<byte[], String> sideFileWriter) {
+        this.maxLogBytes = maxLogBytes;
+        this.maxStepBytes = maxStepBytes;
+        this.maxRunBytes = maxRunBytes;
+        this.previewLength = previewLength;
+        this.sideFileWriter = sideFileWriter;
+    }
+
+    /**
+     * Returns the text to log in place of {@code text}. The context is used
+     * for the step budget and may be null
+     */
+    String limit(ScenarioContext context, String text) {
+        if (text == null) {
+            return null;
+        }
+        long bytes = utf8Length(text);
+        if (tryAcquire(context, bytes)) {
+            return text;
+        }
+        String path = sideFileWriter.apply(text.getBytes(StandardCharsets.UTF_8));
+        String preview = escape(preview(text));
+        charge(context, preview.length());
+        return preview + "&hellip; <a href='" + path + "' target='_blank'>full output (" + bytes + " bytes)</a>";
+    }
+
+    /**
+     * Returns the throwable to log in place of {@code t}, sized by its stack
+     * trace as the report renders it
+     */
+    Throwable limit(ScenarioContext context, Throwable t) {
+        if (t == null) {
+            return null;
+        }
+        StringWriter sw = new StringWriter();
+        t.printStackTrace(new PrintWriter(sw));
+        String stackTrace = sw.toString();
+        long bytes = utf8Length(stackTrace);
+        if (tryAcquire(context, bytes)) {
+            return t;
+        }
+        String path = sideFileWriter.apply(stackTrace.getBytes(StandardCharsets.UTF_8));
+        String message = t.getMessage() == null ? "" : preview(t.getMessage()) + "... ";
+        TruncatedThrowable truncated = new TruncatedThrowable(t,
+                message + "[truncated, full stack trace (" + bytes + " bytes) in " + path + "]");
+        charge(context, truncated.getMessage().length());
+        return truncated;
+    }
+
+    private boolean tryAcquire(ScenarioContext context, long bytes) {
+        if (maxLogBytes > 0 && bytes > maxLogBytes) {
+            return false;
+        }
+        if (maxStepBytes > 0 && context != null && context.getStepLogBytes() + bytes > maxStepBytes) {
+            return false;
+        }
+        if (maxRunBytes > 0) {
+            long current;
+            do {
+                current = runBytes.get();
+                if (current + bytes > maxRunBytes) {
+                    return false;
+                }
+            } while (!runBytes.compareAndSet(current, current + bytes));
+        } else {
+            runBytes.addAndGet(bytes);
+        }
+        if (context != null) {
+            context.addStepLogBytes(bytes);
+        }
+        return true;
+    }
+
+    private void charge(ScenarioContext context, long bytes) {
+        runBytes.addAndGet(bytes);
+        if (context != null) {
+            context.addStepLogBytes(bytes);
+        }
+    }
+
+    private String preview(String text) {
+        int end = Math.min(previewLength, text.length());
+        if (end > 0 && end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    static long utf8Length(CharSequence s) {
+        long length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Stands in for a throwable whose stack trace exceeded the budget. It
+     * prints as the original type, so the report groups it with its kind, but
+     * drops the message and causes
+     */
+    static final class TruncatedThrowable extends Throwable {
+        private static final long serialVersionUID = 3785172064305124722L;
+
+        private final String type;
+
+        TruncatedThrowable(Throwable t, String message) {
+            super(message, null, false, true);
+            this.type = t.getClass().getName();
+            setStackTrace(t.getStackTrace());
+        }
+
+        @Override
+        public String toString() {
+            return type + ": " + getMessage();
+        }
+    }
+}
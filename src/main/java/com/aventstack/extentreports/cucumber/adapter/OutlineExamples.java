@@ -0,0 +1,107 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+
+import gherkin.ast.Examples;
+import gherkin.ast.TableCell;
+import gherkin.ast.TableRow;
+
+/**
+ * Examples blocks entered for one scenario outline. Each block is recorded
+ * once, however many runners enter it, and the outline's description is
+ * rendered from the blocks, in source order, only when the report is flushed.
+ */
+final class OutlineExamples {
+    private final ExtentTest outline;
+    private final String description;
+    private final Map<Integer, Examples> examples = new TreeMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean dirty;
+
+    OutlineExamples(ExtentTest outline) {
+        this.outline = outline;
+        String description = outline.getModel().getDescription();
+        this.description = description == null ? "" : description;
+    }
+
+    ExtentTest getOutline() {
+        return outline;
+    }
+
+    void add(Examples block) {
+        lock.lock();
+        try {
+            if (examples.putIfAbsent(block.getLocation().getLine(), block) == null) {
+                dirty = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the outline's description if a block was added since the last
+     * render
+     */
+    void render(Function<Examples, String> renderer) {
+        lock.lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            StringBuilder sb = new StringBuilder(description);
+            for (Examples block : examples.values()) {
+                sb.append(renderer.apply(block));
+            }
+            outline.getModel().setDescription(sb.toString());
+            dirty = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Renders an examples block as its name followed by its table, keeping
+     * the header and at most {@code maxRows} body rows
+     */
+    static String renderBlock(Examples examples, int maxRows) {
+        List<TableRow> body = examples.getTableBody();
+        List<TableRow> rows = new ArrayList<>(Math.min(body.size(), maxRows) + 1);
+        rows.add(examples.getTableHeader());
+        rows.addAll(body.size() > maxRows ? body.subList(0, maxRows) : body);
+        String markup = MarkupHelper.createTable(getTable(rows)).getMarkup();
+        int hidden = body.size() - maxRows;
+        if (hidden > 0) {
+            markup += "<p>" + hidden + (hidden == 1 ? " more row" : " more rows") + " not shown</p>";
+        }
+        if (examples.getName() != null && !examples.getName().isEmpty()) {
+            markup = examples.getName() + markup;
+        }
+        return markup;
+    }
+
+    private static String[][] getTable(List<TableRow> rows) {
+        String data[][] = null;
+        int rowSize = rows.size();
+        for (int i = 0; i < rowSize; i++) {
+            TableRow row = rows.get(i);
+            List<TableCell> cells = row.getCells();
+            int cellSize = cells.size();
+            if (data == null) {
+                data = new String[rowSize][cellSize];
+            }
+            for (int j = 0; j < cellSize; j++) {
+                data[i][j] = cells.get(j).getValue();
+            }
+        }
+        return data;
+    }
+}
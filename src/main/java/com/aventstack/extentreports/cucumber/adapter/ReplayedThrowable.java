@@ -0,0 +1,44 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+/**
+ * A failure read back from disk, printing as the original throwable did
+ */
+final class ReplayedThrowable extends Throwable {
+    private static final long serialVersionUID = -2265385937472521562L;
+
+    private final String type;
+    // not named stackTrace, which Gson would see twice when the JSON reporter
+    // serializes the failure
+    private final String printed;
+
+    ReplayedThrowable(String type, String message, String stackTrace) {
+        super(message, null, false, false);
+        this.type = type;
+        this.printed = stackTrace == null ? toString() + System.lineSeparator() : stackTrace;
+    }
+
+    /**
+     * Class name of the original throwable
+     */
+    String getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return getMessage() == null ? type : type + ": " + getMessage();
+    }
+
+    @Override
+    public void printStackTrace(PrintWriter s) {
+        s.print(printed);
+    }
+
+    @Override
+    public void printStackTrace(PrintStream s) {
+        s.print(printed);
+    }
+}
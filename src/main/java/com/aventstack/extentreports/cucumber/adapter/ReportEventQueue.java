@@ -0,0 +1,166 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded multi-producer, single-consumer queue that moves report building off
+ * the Cucumber worker threads. Producers only enqueue a task capturing the
+ * (immutable) Cucumber event; a single daemon thread applies the tasks to the
+ * ExtentReports model in arrival order, so the events of one test case are
+ * still applied sequentially.
+ *
+ * <p>
+ * Once the queue is shut down, tasks published by threads that outlive the run
+ * are applied on the publishing thread instead.
+ * </p>
+ */
+final class ReportEventQueue {
+
+    private static final Logger logger = Logger.getLogger(ReportEventQueue.class.getName());
+
+    /**
+     * What producers do when the queue is full
+     */
+    enum Overflow {
+        /**
+         * Wait for the consumer to make room
+         */
+        BLOCK,
+        /**
+         * Drop droppable tasks (step output, embeds); structural tasks still
+         * wait so the report tree stays consistent
+         */
+        DISCARD;
+
+        static Overflow fromString(String s) {
+            return s == null || s.isEmpty() ? BLOCK : valueOf(s.trim().toUpperCase());
+        }
+    }
+
+    private final BlockingQueue<Runnable> queue;
+    private final Overflow overflow;
+    private final Thread consumer;
+    private final AtomicLong discarded = new AtomicLong();
+    private volatile boolean running = true;
+
+    ReportEventQueue(int capacity, Overflow overflow) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflow = overflow;
+        this.consumer = new Thread(this::consume, "extent-report-builder");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    void publish(Runnable task, boolean droppable) {
+        if (!running) {
+            apply(task);
+            return;
+        }
+        if (droppable && overflow == Overflow.DISCARD) {
+            if (!queue.offer(task) && discarded.getAndIncrement() == 0) {
+                logger.warning("Report event queue is full, step output is being discarded");
+            }
+        } else if (!queue.offer(task) && !offerUninterruptibly(task)) {
+            apply(task);
+            return;
+        }
+        // shut down while the task was being queued: apply it here unless
+        // shutdown() already took it from the queue
+        if (!running && queue.remove(task)) {
+            apply(task);
+        }
+    }
+
+    /**
+     * Waits for room for a task that must not be dropped, even when the
+     * publishing thread is interrupted, as Cucumber's step timeouts do; the
+     * interrupt is restored afterwards. Returns false if the queue shut down
+     * in the meantime
+     */
+    private boolean offerUninterruptibly(Runnable task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (queue.offer(task, 100, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                    if (!running) {
+                        return false;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Blocks until every task published before this call has been applied
+     */
+    void drain() {
+        if (Thread.currentThread() == consumer || !running) {
+            return;
+        }
+        CountDownLatch barrier = new CountDownLatch(1);
+        publish(barrier::countDown, false);
+        try {
+            barrier.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies the pending tasks and stops the consumer; tasks published from
+     * then on are applied on the publishing thread
+     */
+    void shutdown() {
+        drain();
+        running = false;
+        consumer.interrupt();
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Runnable task; (task = queue.poll()) != null;) {
+            apply(task);
+        }
+        if (discarded.get() > 0) {
+            logger.warning(discarded.get() + " report events were discarded because the queue was full");
+        }
+    }
+
+    private void consume() {
+        while (running) {
+            Runnable task;
+            try {
+                task = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (task != null) {
+                apply(task);
+            }
+        }
+    }
+
+    private static void apply(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Unable to apply report event", e);
+        }
+    }
+}
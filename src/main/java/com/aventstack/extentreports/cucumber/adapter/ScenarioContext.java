@@ -0,0 +1,152 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.aventstack.extentreports.ExtentTest;
+
+import cucumber.api.TestCase;
+
+/**
+ * Report state of a single running {@link TestCase}, resolved when the test
+ * case starts and looked up by the test case for each of its events, whichever
+ * thread publishes them. Cucumber publishes the events of one test case
+ * sequentially, so a context is only ever mutated by one thread at a time; the
+ * exception is the current step, which may be read or created (for a running
+ * hook) from a thread logging through the static accessors and is guarded by
+ * {@link #getLock()}. The lock is a {@link ReentrantLock} rather than the
+ * context's monitor so that virtual threads waiting for it do not pin their
+ * carrier.
+ */
+final class ScenarioContext {
+    private final TestCase testCase;
+    private final String id;
+    private final ReentrantLock lock = new ReentrantLock();
+    private TestSourcesModel.SourceFile source;
+    private ExtentTest feature;
+    private ExtentTest scenarioOutline;
+    private ExtentTest scenario;
+    private ExtentTest step;
+    private boolean hook;
+    private String pendingHook;
+    private long stepLogBytes;
+    private int journalId;
+
+    ScenarioContext(TestCase testCase) {
+        this.testCase = testCase;
+        this.id = testCase.getUri() + ":" + testCase.getLine();
+    }
+
+    TestCase getTestCase() {
+        return testCase;
+    }
+
+    /**
+     * Identifies the test case the way Cucumber's {@code Scenario#getId()}
+     * does, as its uri and line
+     */
+    String getId() {
+        return id;
+    }
+
+    ReentrantLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Parsed source of the test case's feature file, resolved once when the
+     * test case starts
+     */
+    TestSourcesModel.SourceFile getSource() {
+        return source;
+    }
+
+    void setSource(TestSourcesModel.SourceFile source) {
+        this.source = source;
+    }
+
+    TestSourcesModel.AstNode getAstNode(int line) {
+        return source == null ? null : source.getAstNode(line);
+    }
+
+    TestSourcesModel.StepTemplate getStepTemplate(int line) {
+        return source == null ? null : source.getStepTemplate(line);
+    }
+
+    ExtentTest getFeature() {
+        return feature;
+    }
+
+    void setFeature(ExtentTest feature) {
+        this.feature = feature;
+    }
+
+    /**
+     * Node of the scenario outline the test case is an examples row of, or
+     * null
+     */
+    ExtentTest getScenarioOutline() {
+        return scenarioOutline;
+    }
+
+    void setScenarioOutline(ExtentTest scenarioOutline) {
+        this.scenarioOutline = scenarioOutline;
+    }
+
+    ExtentTest getScenario() {
+        return scenario;
+    }
+
+    void setScenario(ExtentTest scenario) {
+        this.scenario = scenario;
+    }
+
+    ExtentTest getStep() {
+        return step;
+    }
+
+    void setStep(ExtentTest step) {
+        this.step = step;
+        this.stepLogBytes = 0;
+    }
+
+    boolean isHook() {
+        return hook;
+    }
+
+    void setHook(boolean hook) {
+        this.hook = hook;
+    }
+
+    /**
+     * Name of the running hook while its node has not been created yet
+     */
+    String getPendingHook() {
+        return pendingHook;
+    }
+
+    void setPendingHook(String pendingHook) {
+        this.pendingHook = pendingHook;
+    }
+
+    /**
+     * Bytes of text logged under the current step, counted by {@link LogLimits}
+     */
+    long getStepLogBytes() {
+        return stepLogBytes;
+    }
+
+    void addStepLogBytes(long bytes) {
+        this.stepLogBytes += bytes;
+    }
+
+    /**
+     * Id the {@link EventJournal} records of the test case refer to it by
+     */
+    int getJournalId() {
+        return journalId;
+    }
+
+    void setJournalId(int journalId) {
+        this.journalId = journalId;
+    }
+}
@@ -0,0 +1,325 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.gherkin.model.ScenarioOutline;
+import com.aventstack.extentreports.gson.GsonExtentTypeAdapterBuilder;
+import com.aventstack.extentreports.model.Test;
+import com.aventstack.extentreports.service.SparkSplitReporter;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Combines the shards written by forked JVMs in shard mode into a single Spark
+ * and JSON report.
+ *
+ * <pre>
+ * java -cp ... com.aventstack.extentreports.cucumber.adapter.ShardMerger &lt;shard dir&gt; [out dir] [features per page]
+ * </pre>
+ *
+ * <p>
+ * A feature that ran in several JVMs is unified by the uri of its feature
+ * file: its scenarios are merged under the first copy read, and the examples
+ * of a scenario outline are merged under the outline at the same line of the
+ * feature file. Outlines of shards written without their lines are kept apart.
+ * </p>
+ *
+ * <p>
+ * The merge holds one feature at a time. A first pass indexes where the copies
+ * of each feature are in the shards; the features are then read, merged and
+ * written out one by one, in the order they started, to a Spark report split
+ * into pages (see {@link SparkSplitReporter}) and to the JSON report.
+ * </p>
+ */
+public final class ShardMerger {
+
+    private static final Logger logger = Logger.getLogger(ShardMerger.class.getName());
+
+    private static final String DEFAULT_OUT = "test-output/";
+    private static final int DEFAULT_FEATURES_PER_PAGE = 1;
+    private static final String JSON_FILE_NAME = "extent.json";
+
+    private final Gson gson = TestModels.createGson();
+    private final Map<String, FeatureLines> features = new LinkedHashMap<>();
+    private final Map<Path, FileChannel> channels = new HashMap<>();
+
+    private ShardMerger() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: ShardMerger <shard dir> [out dir] [features per page]");
+            System.exit(2);
+        }
+        Path out = Paths.get(args.length > 1 ? args[1] : DEFAULT_OUT);
+        int featuresPerPage = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_FEATURES_PER_PAGE;
+        int count = merge(Paths.get(args[0]), out, featuresPerPage);
+        System.out.println("Merged " + count + " feature(s) into " + out);
+    }
+
+    /**
+     * Merges every shard of the directory into a Spark report under
+     * {@code out/spark/} and a JSON report under {@code out/json/}. Returns
+     * the number of distinct features
+     */
+    public static int merge(Path shardDir, Path out, int featuresPerPage) throws IOException {
+        ShardMerger merger = new ShardMerger();
+        try {
+            for (Path shard : listShards(shardDir)) {
+                merger.index(shard);
+            }
+            merger.write(out, featuresPerPage);
+        } finally {
+            merger.close();
+        }
+        return merger.features.size();
+    }
+
+    private static List<Path> listShards(Path dir) throws IOException {
+        List<Path> shards = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir,
+                FeatureShard.FILE_PREFIX + "*" + FeatureShard.FILE_SUFFIX)) {
+            stream.forEach(shards::add);
+        }
+        shards.sort(null);
+        return shards;
+    }
+
+    /**
+     * Records the position of each line of the shard under the uri of its
+     * feature, reading only the uri and the start time of the feature
+     */
+    private void index(Path shard) throws IOException {
+        try (InputStream in = Files.newInputStream(shard)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            long offset = 0;
+            long lineStart = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                int from = 0;
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n') {
+                        line.write(buffer, from, i - from);
+                        indexLine(shard, lineStart, line);
+                        line.reset();
+                        from = i + 1;
+                        lineStart = offset + from;
+                    }
+                }
+                line.write(buffer, from, n - from);
+                offset += n;
+            }
+            // the last feature of a shard cut short has no line end
+            indexLine(shard, lineStart, line);
+        }
+    }
+
+    private void indexLine(Path shard, long offset, ByteArrayOutputStream line) {
+        if (line.size() == 0) {
+            return;
+        }
+        String uri = null;
+        long startTime = Long.MAX_VALUE;
+        try (JsonReader reader = new JsonReader(new StringReader(line.toString("UTF-8")))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("uri".equals(name)) {
+                    uri = reader.nextString();
+                } else if ("feature".equals(name)) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if ("startTime".equals(reader.nextName())) {
+                            startTime = reader.nextLong();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Skipping an unreadable feature at byte " + offset + " of " + shard + ": " + e);
+            return;
+        }
+        if (uri == null) {
+            logger.warning("Skipping a feature without uri at byte " + offset + " of " + shard);
+            return;
+        }
+        FeatureLines lines = features.computeIfAbsent(uri, x -> new FeatureLines());
+        lines.lines.add(new Line(shard, offset, line.size()));
+        lines.startTime = Math.min(lines.startTime, startTime);
+    }
+
+    private void write(Path out, int featuresPerPage) throws IOException {
+        List<FeatureLines> ordered = new ArrayList<>(features.values());
+        ordered.sort(Comparator.comparingLong(x -> x.startTime));
+        SparkSplitReporter spark = new SparkSplitReporter(out.resolve("spark") + "/", featuresPerPage);
+        Path json = out.resolve("json");
+        Files.createDirectories(json);
+        // the JsonFormatter layout, but for failures, which Gson cannot
+        // reflect into on Java 16 and later
+        Gson jsonGson = GsonExtentTypeAdapterBuilder.builder().withBddTypeAdapterFactory().build().newBuilder()
+                .registerTypeHierarchyAdapter(Throwable.class, TestModels.throwableAdapter())
+                .create();
+        try (Writer writer = Files.newBufferedWriter(json.resolve(JSON_FILE_NAME), StandardCharsets.UTF_8);
+                JsonWriter jsonWriter = jsonGson.newJsonWriter(writer)) {
+            jsonWriter.beginArray();
+            for (FeatureLines lines : ordered) {
+                Test feature = read(lines);
+                if (feature != null) {
+                    jsonGson.toJson(feature, Test.class, jsonWriter);
+                    spark.append(feature);
+                }
+            }
+            jsonWriter.endArray();
+        } finally {
+            spark.close();
+        }
+    }
+
+    /**
+     * Reads and merges the copies of a feature
+     */
+    private Test read(FeatureLines lines) throws IOException {
+        Test feature = null;
+        Map<Integer, Test> outlines = new HashMap<>();
+        for (Line line : lines.lines) {
+            FeatureShard.Entry entry;
+            try {
+                entry = gson.fromJson(new InputStreamReader(line.open(), StandardCharsets.UTF_8),
+                        FeatureShard.Entry.class);
+            } catch (JsonParseException e) {
+                logger.warning("Skipping an unreadable feature at byte " + line.offset + " of " + line.shard + ": " + e);
+                continue;
+            }
+            List<Test> children = new ArrayList<>(entry.feature.getChildren());
+            if (feature == null) {
+                feature = entry.feature;
+                for (int i = 0; i < children.size(); i++) {
+                    int outlineLine = outlineLine(entry, i);
+                    if (outlineLine > 0) {
+                        outlines.putIfAbsent(outlineLine, children.get(i));
+                    }
+                }
+                continue;
+            }
+            for (int i = 0; i < children.size(); i++) {
+                Test child = children.get(i);
+                int outlineLine = outlineLine(entry, i);
+                Test outline = outlineLine > 0 ? outlines.get(outlineLine) : null;
+                if (outline == null) {
+                    feature.getChildren().add(child);
+                    if (outlineLine > 0) {
+                        outlines.put(outlineLine, child);
+                    }
+                } else {
+                    outline.getChildren().addAll(child.getChildren());
+                    mergeResult(outline, child);
+                }
+            }
+            mergeResult(feature, entry.feature);
+        }
+        if (feature != null) {
+            TestModels.link(feature);
+        }
+        return feature;
+    }
+
+    private static int outlineLine(FeatureShard.Entry entry, int child) {
+        if (entry.outlineLines == null || child >= entry.outlineLines.length) {
+            return 0;
+        }
+        Test test = entry.feature.getChildren().get(child);
+        return test.getBddType() == ScenarioOutline.class ? entry.outlineLines[child] : 0;
+    }
+
+    private static void mergeResult(Test target, Test source) {
+        target.setStatus(Status.max(target.getStatus(), source.getStatus()));
+        if (source.getStartTime().before(target.getStartTime())) {
+            target.setStartTime(source.getStartTime());
+        }
+        if (source.getEndTime().after(target.getEndTime())) {
+            target.setEndTime(source.getEndTime());
+        }
+    }
+
+    private FileChannel channel(Path shard) throws IOException {
+        FileChannel channel = channels.get(shard);
+        if (channel == null) {
+            channel = FileChannel.open(shard, StandardOpenOption.READ);
+            channels.put(shard, channel);
+        }
+        return channel;
+    }
+
+    private void close() {
+        for (FileChannel channel : channels.values()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warning("Unable to close a shard: " + e);
+            }
+        }
+        channels.clear();
+    }
+
+    /**
+     * The lines holding the copies of a feature, in the order they were read
+     */
+    private static final class FeatureLines {
+        final List<Line> lines = new ArrayList<>();
+        long startTime = Long.MAX_VALUE;
+    }
+
+    private final class Line {
+        final Path shard;
+        final long offset;
+        final int length;
+
+        Line(Path shard, long offset, int length) {
+            this.shard = shard;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        InputStream open() throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            FileChannel channel = channel(shard);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) == -1) {
+                    throw new IOException("Shard " + shard + " shrank while merging");
+                }
+            }
+            return new ByteArrayInputStream(buffer.array());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.function.Consumer;
+
+import com.aventstack.extentreports.gson.BddTypeAdapterFactory;
+import com.aventstack.extentreports.model.Log;
+import com.aventstack.extentreports.model.Report;
+import com.aventstack.extentreports.model.Test;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Helpers for moving {@link Test} subtrees in and out of a {@link Report}
+ * without going through {@code ExtentReports}, shared by feature spills and
+ * report shards.
+ */
+final class TestModels {
+
+    private TestModels() {
+    }
+
+    /**
+     * Serializes tests in the JsonFormatter layout, with dates kept to the
+     * millisecond and failures as their printed stack trace
+     */
+    static Gson createGson() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new BddTypeAdapterFactory())
+                .registerTypeAdapter(Date.class, (JsonSerializer<Date>) (src, type, ctx) -> new JsonPrimitive(src.getTime()))
+                .registerTypeAdapter(Date.class, (JsonDeserializer<Date>) (json, type, ctx) -> new Date(json.getAsLong()))
+                .registerTypeHierarchyAdapter(Throwable.class, throwableAdapter())
+                .create();
+    }
+
+    /**
+     * Writes a throwable as its class name, message and printed stack trace,
+     * and reads it back as a {@link ReplayedThrowable}. Gson cannot reflect
+     * into {@code Throwable} on Java 16 and later
+     */
+    static TypeAdapter<Throwable> throwableAdapter() {
+        return new TypeAdapter<Throwable>() {
+            @Override
+            public void write(JsonWriter out, Throwable value) throws IOException {
+                StringWriter printed = new StringWriter();
+                value.printStackTrace(new PrintWriter(printed));
+                out.beginObject();
+                out.name("type").value(value instanceof ReplayedThrowable
+                        ? ((ReplayedThrowable) value).getType()
+                        : value.getClass().getName());
+                out.name("message").value(value.getMessage());
+                out.name("stackTrace").value(printed.toString());
+                out.endObject();
+            }
+
+            @Override
+            public Throwable read(JsonReader in) throws IOException {
+                String type = null;
+                String message = null;
+                String stackTrace = null;
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                    case "type":
+                        type = nextString(in);
+                        break;
+                    case "message":
+                        message = nextString(in);
+                        break;
+                    case "stackTrace":
+                        stackTrace = nextString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                    }
+                }
+                in.endObject();
+                return new ReplayedThrowable(type == null ? Throwable.class.getName() : type, message, stackTrace);
+            }
+        }.nullSafe();
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    /**
+     * Links a deserialized test to its children and registers the whole
+     * subtree with the report's attribute and exception contexts
+     */
+    static void attach(Report report, Test test) {
+        test.getAuthorSet().forEach(x -> report.getAuthorCtx().addContext(x, test));
+        test.getCategorySet().forEach(x -> report.getCategoryCtx().addContext(x, test));
+        test.getDeviceSet().forEach(x -> report.getDeviceCtx().addContext(x, test));
+        for (Log log : test.getLogs()) {
+            if (log.hasException()) {
+                report.getExceptionInfoCtx().addContext(log.getException(), test);
+            }
+        }
+        for (Test child : test.getChildren()) {
+            child.setParent(test);
+            attach(report, child);
+        }
+    }
+
+    /**
+     * Links a deserialized test to its children, down the whole subtree
+     */
+    static void link(Test test) {
+        for (Test child : test.getChildren()) {
+            child.setParent(test);
+            link(child);
+        }
+    }
+
+    /**
+     * Removes the subtree from the report's attribute and exception contexts
+     */
+    static void detach(Report report, Test test) {
+        forEachTest(test, t -> {
+            report.getAuthorCtx().removeTest(t);
+            report.getCategoryCtx().removeTest(t);
+            report.getDeviceCtx().removeTest(t);
+            report.getExceptionInfoCtx().removeTest(t);
+        });
+    }
+
+    private static void forEachTest(Test test, Consumer<Test> action) {
+        action.accept(test);
+        test.getChildren().forEach(x -> forEachTest(x, action));
+    }
+}
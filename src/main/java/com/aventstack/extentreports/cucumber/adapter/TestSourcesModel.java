@@ -1,5 +1,7 @@
 package com.aventstack.extentreports.cucumber.adapter;
 
+import com.aventstack.extentreports.GherkinKeyword;
+
 import cucumber.api.event.TestSourceRead;
 import gherkin.AstBuilder;
 import gherkin.GherkinDialect;
@@ -12,23 +14,29 @@ import gherkin.ast.Examples;
 import gherkin.ast.Feature;
 import gherkin.ast.GherkinDocument;
 import gherkin.ast.Node;
+import gherkin.ast.Scenario;
 import gherkin.ast.ScenarioDefinition;
 import gherkin.ast.ScenarioOutline;
 import gherkin.ast.Step;
 import gherkin.ast.TableRow;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * TestSourcesModel from Cucumber-JVM (MIT licensed)
  * Original source: https://github.com/cucumber/cucumber-jvm/blob/master/core/src/main/java/cucumber/runtime/formatter/TestSourcesModel.java
  * 
+ * Sources are parsed in the common fork-join pool as soon as they are read, so
+ * lookups made while scenarios run only read an immutable per-file snapshot.
  */
 final class TestSourcesModel {
-    private final Map<String, TestSourceRead> pathToReadEventMap = new HashMap<String, TestSourceRead>();
-    private final Map<String, GherkinDocument> pathToAstMap = new HashMap<String, GherkinDocument>();
-    private final Map<String, Map<Integer, AstNode>> pathToNodeMap = new HashMap<String, Map<Integer, AstNode>>();
+    private final Map<String, TestSourceRead> pathToReadEventMap = new ConcurrentHashMap<String, TestSourceRead>();
+    private final Map<String, CompletableFuture<SourceFile>> pathToSourceMap = new ConcurrentHashMap<String, CompletableFuture<SourceFile>>();
 
     static Feature getFeatureForTestCase(AstNode astNode) {
         while (astNode.parent != null) {
@@ -85,16 +93,21 @@ final class TestSourcesModel {
 
     void addTestSourceReadEvent(String path, TestSourceRead event) {
         pathToReadEventMap.put(path, event);
+        pathToSourceMap.put(path, CompletableFuture.supplyAsync(() -> parseGherkinSource(event), ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Returns the parsed snapshot of a source, waiting only if its parse is
+     * still in flight
+     */
+    SourceFile getSourceFile(String path) {
+        CompletableFuture<SourceFile> source = path == null ? null : pathToSourceMap.get(path);
+        return source == null ? null : source.join();
     }
 
     Feature getFeature(String path) {
-        if (!pathToAstMap.containsKey(path)) {
-            parseGherkinSource(path);
-        }
-        if (pathToAstMap.containsKey(path)) {
-            return pathToAstMap.get(path).getFeature();
-        }
-        return null;
+        SourceFile source = getSourceFile(path);
+        return source == null ? null : source.getFeature();
     }
 
     ScenarioDefinition getScenarioDefinition(String path, int line) {
@@ -102,24 +115,13 @@ final class TestSourcesModel {
     }
 
     AstNode getAstNode(String path, int line) {
-        if (!pathToNodeMap.containsKey(path)) {
-            parseGherkinSource(path);
-        }
-        if (pathToNodeMap.containsKey(path)) {
-            return pathToNodeMap.get(path).get(line);
-        }
-        return null;
+        SourceFile source = getSourceFile(path);
+        return source == null ? null : source.getAstNode(line);
     }
 
     boolean hasBackground(String path, int line) {
-        if (!pathToNodeMap.containsKey(path)) {
-            parseGherkinSource(path);
-        }
-        if (pathToNodeMap.containsKey(path)) {
-            AstNode astNode = pathToNodeMap.get(path).get(line);
-            return getBackgroundForTestCase(astNode) != null;
-        }
-        return false;
+        SourceFile source = getSourceFile(path);
+        return source != null && source.hasBackground(line);
     }
 
     String getKeywordFromSource(String uri, int stepLine) {
@@ -138,10 +140,7 @@ final class TestSourcesModel {
     }
 
     private TestSourceRead getTestSourceReadEvent(String uri) {
-        if (pathToReadEventMap.containsKey(uri)) {
-            return pathToReadEventMap.get(uri);
-        }
-        return null;
+        return pathToReadEventMap.get(uri);
     }
 
     String getFeatureName(String uri) {
@@ -152,23 +151,23 @@ final class TestSourcesModel {
         return "";
     }
 
-    private void parseGherkinSource(String path) {
-        if (!pathToReadEventMap.containsKey(path)) {
-            return;
-        }
+    private SourceFile parseGherkinSource(TestSourceRead event) {
         Parser<GherkinDocument> parser = new Parser<GherkinDocument>(new AstBuilder());
         TokenMatcher matcher = new TokenMatcher();
         try {
-            GherkinDocument gherkinDocument = parser.parse(pathToReadEventMap.get(path).source, matcher);
-            pathToAstMap.put(path, gherkinDocument);
+            GherkinDocument gherkinDocument = parser.parse(event.source, matcher);
+            if (gherkinDocument.getFeature() == null) {
+                return null;
+            }
             Map<Integer, AstNode> nodeMap = new HashMap<Integer, AstNode>();
             AstNode currentParent = new AstNode(gherkinDocument.getFeature(), null);
             for (ScenarioDefinition child : gherkinDocument.getFeature().getChildren()) {
                 processScenarioDefinition(nodeMap, child, currentParent);
             }
-            pathToNodeMap.put(path, nodeMap);
+            return new SourceFile(gherkinDocument, nodeMap);
         } catch (ParserException e) {
             // Ignore exceptions
+            return null;
         }
     }
 
@@ -198,6 +197,95 @@ final class TestSourcesModel {
         }
     }
 
+    /**
+     * Immutable parse result of one source. Nodes are indexed by line in a
+     * sorted int[] with a parallel AstNode[], so lookups made for every test
+     * case and step are a binary search without boxing
+     */
+    static final class SourceFile {
+        final GherkinDocument document;
+        private final int[] lines;
+        private final AstNode[] nodes;
+        private final StepTemplate[] steps;
+        private final int testCaseCount;
+
+        SourceFile(GherkinDocument document, Map<Integer, AstNode> nodeMap) {
+            this.document = document;
+            this.lines = nodeMap.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            this.nodes = new AstNode[lines.length];
+            this.steps = new StepTemplate[lines.length];
+            int count = 0;
+            for (int i = 0; i < lines.length; i++) {
+                nodes[i] = nodeMap.get(lines[i]);
+                if (nodes[i].node instanceof Step) {
+                    steps[i] = new StepTemplate((Step) nodes[i].node);
+                }
+                if (nodes[i].node instanceof Scenario || nodes[i].node instanceof ExamplesRowWrapperNode) {
+                    count++;
+                }
+            }
+            this.testCaseCount = count;
+        }
+
+        /**
+         * Number of test cases the source defines when run unfiltered: one per
+         * scenario and one per examples row
+         */
+        int getTestCaseCount() {
+            return testCaseCount;
+        }
+
+        Feature getFeature() {
+            return document.getFeature();
+        }
+
+        AstNode getAstNode(int line) {
+            int i = Arrays.binarySearch(lines, line);
+            return i < 0 ? null : nodes[i];
+        }
+
+        /**
+         * Returns the step defined at the line, or null if there is none
+         */
+        StepTemplate getStepTemplate(int line) {
+            int i = Arrays.binarySearch(lines, line);
+            return i < 0 ? null : steps[i];
+        }
+
+        boolean hasBackground(int line) {
+            AstNode astNode = getAstNode(line);
+            return astNode != null && getBackgroundForTestCase(astNode) != null;
+        }
+    }
+
+    /**
+     * Report data of a step line, shared by every execution of the step: its
+     * keyword, its HTML-escaped text and the resolved {@link GherkinKeyword}
+     */
+    static final class StepTemplate {
+        final String keyword;
+        final String escapedText;
+        private volatile GherkinKeyword gherkinKeyword;
+
+        StepTemplate(Step step) {
+            this.keyword = step.getKeyword();
+            this.escapedText = step.getText().replace("<", "&lt;").replace(">", "&gt;");
+        }
+
+        /**
+         * Resolved on first use, so a dialect configured before the first step
+         * runs still applies
+         */
+        GherkinKeyword getGherkinKeyword() throws ClassNotFoundException {
+            GherkinKeyword k = gherkinKeyword;
+            if (k == null) {
+                k = new GherkinKeyword(keyword.trim());
+                gherkinKeyword = k;
+            }
+            return k;
+        }
+    }
+
     class ExamplesRowWrapperNode extends Node {
         final int bodyRowIndex;
 
@@ -30,11 +30,17 @@ class URLOutputStream extends OutputStream {
   private final OutputStream out;
   private final HttpURLConnection urlConnection;
 
-  URLOutputStream(URL url) throws IOException, URISyntaxException {
-    this(url, "PUT", Collections.emptyMap(), 200);
+  /**
+   * @param contentLength length of the body when known, or -1 to stream it in chunks
+   * @param connectTimeoutMillis connect timeout of http URLs, 0 for none
+   * @param readTimeoutMillis read timeout of http URLs, 0 for none
+   */
+  URLOutputStream(URL url, long contentLength, int connectTimeoutMillis, int readTimeoutMillis) throws IOException, URISyntaxException {
+    this(url, "PUT", Collections.emptyMap(), 200, contentLength, connectTimeoutMillis, readTimeoutMillis);
   }
 
-  private URLOutputStream(URL url, String method, Map<String, String> headers, int expectedResponseCode) throws IOException, URISyntaxException {
+  private URLOutputStream(URL url, String method, Map<String, String> headers, int expectedResponseCode,
+      long contentLength, int connectTimeoutMillis, int readTimeoutMillis) throws IOException, URISyntaxException {
     this.url = url;
     this.method = method;
     this.expectedResponseCode = expectedResponseCode;
@@ -47,6 +53,13 @@ class URLOutputStream extends OutputStream {
       urlConnection = (HttpURLConnection) url.openConnection();
       urlConnection.setRequestMethod(method);
       urlConnection.setDoOutput(true);
+      urlConnection.setConnectTimeout(connectTimeoutMillis);
+      urlConnection.setReadTimeout(readTimeoutMillis);
+      if (contentLength >= 0) {
+        urlConnection.setFixedLengthStreamingMode(contentLength);
+      } else {
+        urlConnection.setChunkedStreamingMode(0);
+      }
       for (Map.Entry<String, String> header : headers.entrySet()) {
         urlConnection.setRequestProperty(header.getKey(), header.getValue());
       }
@@ -94,6 +107,13 @@ class URLOutputStream extends OutputStream {
 
       int responseCode = urlConnection.getResponseCode();
       if (responseCode == expectedResponseCode) {
+        // reading the response to the end lets the connection be kept alive and reused
+        try (InputStream in = urlConnection.getInputStream()) {
+          byte[] buffer = new byte[1024];
+          while (in.read(buffer) != -1) {
+            // discard
+          }
+        }
         return;
       }
 
@@ -136,6 +156,10 @@ class URLOutputStream extends OutputStream {
       this.contentType = contentType;
     }
 
+    int getResponseCode() {
+      return responseCode;
+    }
+
     @Override
     public String getMessage() {
       if (contentType.equals("application/json")) {
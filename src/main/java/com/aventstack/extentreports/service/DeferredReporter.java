@@ -0,0 +1,221 @@
+package com.aventstack.extentreports.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.aventstack.extentreports.observer.AttributesObserver;
+import com.aventstack.extentreports.observer.EntityObserver;
+import com.aventstack.extentreports.observer.ExtentObserver;
+import com.aventstack.extentreports.observer.LogObserver;
+import com.aventstack.extentreports.observer.MediaObserver;
+import com.aventstack.extentreports.observer.ReportObserver;
+import com.aventstack.extentreports.observer.TestObserver;
+import com.aventstack.extentreports.observer.entity.AttributeEntity;
+import com.aventstack.extentreports.observer.entity.LogEntity;
+import com.aventstack.extentreports.observer.entity.MediaEntity;
+import com.aventstack.extentreports.observer.entity.ObservedEntity;
+import com.aventstack.extentreports.observer.entity.ReportEntity;
+import com.aventstack.extentreports.observer.entity.TestEntity;
+
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Stands in for a reporter while it is created in the background, so that
+ * reading its configuration or connecting to its database does not delay the
+ * first scenario. It is attached in place of the reporter and subscribes to
+ * every entity; entities published before the reporter is ready are kept, in
+ * order, and handed to it once it is. A flush waits for the reporter up to a
+ * timeout.
+ *
+ * <p>
+ * A reporter that cannot be created is logged once and its entities are
+ * dropped.
+ * </p>
+ */
+final class DeferredReporter implements EntityObserver<ObservedEntity> {
+
+    private static final Logger logger = Logger.getLogger(DeferredReporter.class.getName());
+
+    private final String name;
+    private final long timeoutSeconds;
+    // not the monitor, so virtual threads publishing entities do not pin
+    // their carrier while the reporter is being resolved
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Runnable> pending = new ArrayList<>();
+    private final CompletableFuture<Void> ready;
+    private final Channel<ReportEntity> reportChannel = new Channel<>(
+            x -> x instanceof ReportObserver ? ((ReportObserver<?>) x).getReportObserver() : null);
+    private final Channel<TestEntity> testChannel = new Channel<>(
+            x -> x instanceof TestObserver ? ((TestObserver<?>) x).getTestObserver() : null);
+    private final Channel<LogEntity> logChannel = new Channel<>(
+            x -> x instanceof LogObserver ? ((LogObserver<?>) x).getLogObserver() : null);
+    private final Channel<MediaEntity> mediaChannel = new Channel<>(
+            x -> x instanceof MediaObserver ? ((MediaObserver<?>) x).getMediaObserver() : null);
+    private final Channel<AttributeEntity> attributesChannel = new Channel<>(
+            x -> x instanceof AttributesObserver ? ((AttributesObserver<?>) x).getAttributesObserver() : null);
+    private volatile boolean resolved;
+
+    /**
+     * @param factory creates the reporter, or returns null when it is not to
+     *        be attached after all
+     */
+    DeferredReporter(String name, Callable<ExtentObserver<?>> factory, Executor executor, long timeoutSeconds) {
+        this.name = name;
+        this.timeoutSeconds = timeoutSeconds;
+        this.ready = CompletableFuture.supplyAsync(() -> {
+            try {
+                return factory.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor).handle((reporter, e) -> {
+            resolve(reporter, e);
+            return null;
+        });
+    }
+
+    /**
+     * Subscribes the reporter to the entities in place of this stand-in and
+     * hands it those published so far
+     */
+    private void resolve(ExtentObserver<?> reporter, Throwable e) {
+        lock.lock();
+        try {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                logger.log(Level.SEVERE, "Unable to initialize the " + name + " reporter, its output is skipped",
+                        cause);
+            } else if (reporter != null) {
+                reportChannel.resolve(reporter);
+                testChannel.resolve(reporter);
+                logChannel.resolve(reporter);
+                mediaChannel.resolve(reporter);
+                attributesChannel.resolve(reporter);
+                pending.forEach(Runnable::run);
+            }
+            pending.clear();
+            resolved = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitReady() {
+        try {
+            ready.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            logger.warning("The " + name + " reporter was not ready after " + timeoutSeconds
+                    + "s, it renders once it is");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // reported when resolved
+        }
+    }
+
+    @Override
+    public Observer<ReportEntity> getReportObserver() {
+        return reportChannel;
+    }
+
+    @Override
+    public Observer<TestEntity> getTestObserver() {
+        return testChannel;
+    }
+
+    @Override
+    public Observer<LogEntity> getLogObserver() {
+        return logChannel;
+    }
+
+    @Override
+    public Observer<MediaEntity> getMediaObserver() {
+        return mediaChannel;
+    }
+
+    @Override
+    public Observer<AttributeEntity> getAttributesObserver() {
+        return attributesChannel;
+    }
+
+    /**
+     * One kind of entity, forwarded to the matching observer of the reporter
+     * once it is resolved
+     */
+    private final class Channel<E extends ObservedEntity> implements Observer<E> {
+        private final Function<ExtentObserver<?>, Observer<E>> observerOf;
+        private Disposable disposable;
+        private volatile Observer<E> delegate;
+
+        Channel(Function<ExtentObserver<?>, Observer<E>> observerOf) {
+            this.observerOf = observerOf;
+        }
+
+        void resolve(ExtentObserver<?> reporter) {
+            Observer<E> observer = observerOf.apply(reporter);
+            if (observer != null && disposable != null) {
+                observer.onSubscribe(disposable);
+            }
+            delegate = observer;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            disposable = d;
+        }
+
+        @Override
+        public void onNext(E value) {
+            if (!resolved) {
+                if (this == reportChannel) {
+                    awaitReady();
+                }
+                lock.lock();
+                try {
+                    if (!resolved) {
+                        pending.add(() -> forward(value));
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            forward(value);
+        }
+
+        private void forward(E value) {
+            Observer<E> observer = delegate;
+            if (observer != null) {
+                observer.onNext(value);
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            Observer<E> observer = delegate;
+            if (observer != null) {
+                observer.onError(e);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            Observer<E> observer = delegate;
+            if (observer != null) {
+                observer.onComplete();
+            }
+        }
+    }
+}
@@ -1,17 +1,31 @@
 package com.aventstack.extentreports.service;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
 
 import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.observer.AttributesObserver;
 import com.aventstack.extentreports.observer.ExtentObserver;
+import com.aventstack.extentreports.observer.LogObserver;
+import com.aventstack.extentreports.observer.MediaObserver;
+import com.aventstack.extentreports.observer.ReportObserver;
+import com.aventstack.extentreports.observer.TestObserver;
+import com.aventstack.extentreports.observer.entity.AttributeEntity;
+import com.aventstack.extentreports.observer.entity.LogEntity;
+import com.aventstack.extentreports.observer.entity.MediaEntity;
+import com.aventstack.extentreports.observer.entity.ReportEntity;
+import com.aventstack.extentreports.observer.entity.TestEntity;
 import com.aventstack.extentreports.reporter.ExtentKlovReporter;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.aventstack.extentreports.reporter.JsonFormatter;
@@ -23,9 +37,11 @@ public class ExtentService
 
     private static final long serialVersionUID = -5008231199972325650L;
 
+    private static final Logger logger = Logger.getLogger(ExtentService.class.getName());
+
     private static Properties properties;
 
-    public static synchronized ExtentReports getInstance() {
+    public static ExtentReports getInstance() {
         return ExtentReportsLoader.INSTANCE;
     }
 
@@ -34,6 +50,22 @@ public class ExtentService
         return sys == null ? (properties == null ? null : properties.get(key)) : sys;
     }
 
+    /**
+     * Reads a whole number property, falling back to the default when it is
+     * not set or is not a number
+     */
+    static long getLongProperty(String key, long defaultValue) {
+        Object prop = getProperty(key);
+        if (prop == null || String.valueOf(prop).trim().isEmpty())
+            return defaultValue;
+        try {
+            return Long.parseLong(String.valueOf(prop).trim());
+        } catch (NumberFormatException e) {
+            logger.warning("Ignoring " + key + "=" + prop + ", not a whole number, using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     @SuppressWarnings("unused")
     private ExtentReports readResolve() {
         return ExtentReportsLoader.INSTANCE;
@@ -66,9 +98,37 @@ public class ExtentService
         private static final String INIT_KLOV_KEY = EXTENT_REPORTER + DELIM + KLOV + DELIM + START;
         private static final String CONFIG_KLOV_KEY = EXTENT_REPORTER + DELIM + KLOV + DELIM + CONFIG;
 
+        // creates the reporters in the background, in parallel, while the run
+        // starts; each is attached as a DeferredReporter until it is ready
+        private static final String INIT_ASYNC_KEY = EXTENT_REPORTER + DELIM + "init.async";
+        private static final String INIT_TIMEOUT_KEY = EXTENT_REPORTER + DELIM + "init.timeout.seconds";
+        private static final long DEFAULT_INIT_TIMEOUT_SECONDS = 60;
+
+        // queues Klov's MongoDB writes and writes them in bulk in the background
+        private static final String KLOV_BULK_KEY = EXTENT_REPORTER + DELIM + KLOV + DELIM + "bulk";
+        private static final String KLOV_BULK_SIZE_KEY = KLOV_BULK_KEY + DELIM + "size";
+        private static final String KLOV_BULK_LINGER_KEY = KLOV_BULK_KEY + DELIM + "linger.ms";
+        private static final String KLOV_BULK_QUEUE_KEY = KLOV_BULK_KEY + DELIM + "queue.size";
+        private static final long DEFAULT_KLOV_BULK_SIZE = 500;
+        private static final long DEFAULT_KLOV_BULK_LINGER_MS = 100;
+        private static final long DEFAULT_KLOV_BULK_QUEUE_SIZE = 10000;
+
+        // flushes the reporters concurrently rather than one after the other
+        private static final String FLUSH_PARALLEL_KEY = EXTENT_REPORTER + DELIM + "flush.parallel";
+        private static final String FLUSH_TIMEOUT_KEY = EXTENT_REPORTER + DELIM + "flush.timeout.seconds";
+        private static final long DEFAULT_FLUSH_TIMEOUT_SECONDS = 0;
+
+        // writes Spark as a page per N features and an index linking to them
+        private static final String SPARK_SPLIT_KEY = EXTENT_REPORTER + DELIM + SPARK + DELIM + "split.features";
+
+        private static ExecutorService initExecutor;
+        private static ParallelFlush parallelFlush;
+
         static {
             createViaProperties();
             createViaSystem();
+            if (initExecutor != null)
+                initExecutor.shutdown();
         }
 
         private static void createViaProperties() {
@@ -121,38 +181,52 @@ public class ExtentService
 
         private static void initSpark(Properties properties) {
             String out = getOutputPath(properties, OUT_SPARK_KEY);
-            ExtentSparkReporter spark = new ExtentSparkReporter(out);
-            attach(spark, properties, CONFIG_SPARK_KEY);
+            long featuresPerPage = getLongProperty(SPARK_SPLIT_KEY, 0);
+            if (featuresPerPage > 0)
+                attach(SPARK, () -> new SparkSplitReporter(out, (int) featuresPerPage,
+                        x -> (ExtentSparkReporter) configure(new ExtentSparkReporter(x), properties, CONFIG_SPARK_KEY)));
+            else
+                attach(SPARK, () -> configure(new ExtentSparkReporter(out), properties, CONFIG_SPARK_KEY));
         }
 
         private static void initJsonf(Properties properties) {
             String out = getOutputPath(properties, OUT_JSONF_KEY);
-            JsonFormatter jsonf = new JsonFormatter(out);
-            INSTANCE.attachReporter(jsonf);
+            attach(JSONF, () -> new JsonFormatter(out));
         }
 
         private static void initKlov(Properties properties) {
-            ExtentKlovReporter klov = new ExtentKlovReporter("Default");
             String configPath = properties == null
                     ? System.getProperty(CONFIG_KLOV_KEY)
                     : String.valueOf(properties.get(CONFIG_KLOV_KEY));
-            File f = new File(configPath);
-            if (configPath != null && !configPath.isEmpty() && f.exists()) {
+            if (configPath != null && !configPath.isEmpty() && new File(configPath).exists()) {
                 Object prop = ExtentService.getProperty("screenshot.dir");
                 String screenshotDir = prop == null ? "test-output/" : String.valueOf(prop);
                 String url = Paths.get(screenshotDir).toString();
                 ExtentService.getInstance().tryResolveMediaPath(new String[]{url});
-                try {
-                    InputStream is = new FileInputStream(f);
-                    klov.loadInitializationParams(is);
-                    INSTANCE.attachReporter(klov);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                KlovBulkWriter writer = "true".equals(String.valueOf(ExtentService.getProperty(KLOV_BULK_KEY)))
+                        ? new KlovBulkWriter((int) getLongProperty(KLOV_BULK_SIZE_KEY, DEFAULT_KLOV_BULK_SIZE),
+                                getLongProperty(KLOV_BULK_LINGER_KEY, DEFAULT_KLOV_BULK_LINGER_MS),
+                                (int) getLongProperty(KLOV_BULK_QUEUE_KEY, DEFAULT_KLOV_BULK_QUEUE_SIZE))
+                        : null;
+                attach(KLOV, () -> {
+                    byte[] config = Files.readAllBytes(Paths.get(configPath));
+                    ExtentKlovReporter klov = new ExtentKlovReporter("Default");
+                    klov.loadInitializationParams(new ByteArrayInputStream(config));
+                    if (writer != null) {
+                        Properties params = new Properties();
+                        params.load(new ByteArrayInputStream(config));
+                        writer.install(klov, params);
+                    }
+                    return klov;
+                });
+                // subscribed after the reporter, so the flush drains the writes
+                // Klov makes while flushing
+                if (writer != null)
+                    INSTANCE.attachReporter(writer);
             }
         }
 
-        private static void attach(ReporterConfigurable r, Properties properties, String configKey) {
+        private static ExtentObserver<?> configure(ReporterConfigurable r, Properties properties, String configKey) {
             Object configPath = properties == null
                     ? System.getProperty(configKey)
                     : properties.get(configKey);
@@ -162,7 +236,57 @@ public class ExtentService
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
-            INSTANCE.attachReporter((ExtentObserver<?>) r);
+            return (ExtentObserver<?>) r;
+        }
+
+        private static void attach(String name, Callable<ExtentObserver<?>> factory) {
+            if ("true".equals(String.valueOf(ExtentService.getProperty(INIT_ASYNC_KEY)))) {
+                subscribe(name, new DeferredReporter(name, factory, initExecutor(),
+                        getLongProperty(INIT_TIMEOUT_KEY, DEFAULT_INIT_TIMEOUT_SECONDS)));
+                return;
+            }
+            try {
+                subscribe(name, factory.call());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Attaches the reporter, with its flushes going through the
+         * {@link ParallelFlush} when flushes are parallel
+         */
+        @SuppressWarnings("unchecked")
+        private static void subscribe(String name, ExtentObserver<?> reporter) {
+            if (!"true".equals(String.valueOf(ExtentService.getProperty(FLUSH_PARALLEL_KEY)))) {
+                INSTANCE.attachReporter(reporter);
+                return;
+            }
+            if (parallelFlush == null) {
+                parallelFlush = new ParallelFlush(getLongProperty(FLUSH_TIMEOUT_KEY, DEFAULT_FLUSH_TIMEOUT_SECONDS));
+                INSTANCE.attachReporter(parallelFlush);
+            }
+            if (reporter instanceof ReportObserver)
+                parallelFlush.add(name, ((ReportObserver<ReportEntity>) reporter).getReportObserver());
+            if (reporter instanceof TestObserver)
+                INSTANCE.getTestSubject().subscribe(((TestObserver<TestEntity>) reporter).getTestObserver());
+            if (reporter instanceof LogObserver)
+                INSTANCE.getLogSubject().subscribe(((LogObserver<LogEntity>) reporter).getLogObserver());
+            if (reporter instanceof MediaObserver)
+                INSTANCE.getMediaSubject().subscribe(((MediaObserver<MediaEntity>) reporter).getMediaObserver());
+            if (reporter instanceof AttributesObserver)
+                INSTANCE.getAttribSubject()
+                        .subscribe(((AttributesObserver<AttributeEntity>) reporter).getAttributesObserver());
+        }
+
+        private static ExecutorService initExecutor() {
+            if (initExecutor == null)
+                initExecutor = Executors.newCachedThreadPool(r -> {
+                    Thread t = new Thread(r, "extent-reporter-init");
+                    t.setDaemon(true);
+                    return t;
+                });
+            return initExecutor;
         }
     }
 }
@@ -0,0 +1,486 @@
+package com.aventstack.extentreports.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import com.aventstack.extentreports.observer.ReportObserver;
+import com.aventstack.extentreports.observer.entity.ReportEntity;
+import com.aventstack.extentreports.reporter.ExtentKlovReporter;
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientURI;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Write-behind for the Klov reporter, which otherwise makes a MongoDB round
+ * trip for every node and log from the thread that adds it. The inserts,
+ * updates and deletes it issues are queued and written by a background thread
+ * as ordered bulk writes, one per collection, of up to a batch size or
+ * whatever was queued within the linger time.
+ *
+ * <p>
+ * Klov reads the id of a document it has just inserted, so ids are assigned as
+ * the insert is queued. Any other operation, such as a find, first waits for
+ * the writes queued before it, so Klov still reads its own writes. The queue
+ * is bounded; a thread queueing a write to a full queue waits. The queue is
+ * drained whenever the report is flushed, which the adapter does when the run
+ * finishes.
+ * </p>
+ *
+ * <p>
+ * Collections are wrapped with {@link #wrap(MongoCollection)}, so the writer
+ * can be exercised against a stand-in collection as well as a live database.
+ * </p>
+ */
+final class KlovBulkWriter implements ReportObserver<ReportEntity> {
+
+    private static final Logger logger = Logger.getLogger(KlovBulkWriter.class.getName());
+
+    private static final String MONGODB_HOST = "mongodb.host";
+    private static final String MONGODB_PORT = "mongodb.port";
+    private static final String MONGODB_URI = "mongodb.uri";
+    // the reporter keeps its connection in a private field, which is only
+    // replaced in the version it was read from
+    private static final String MONGO_CLIENT_FIELD = "mongoClient";
+    private static final String KLOV_VERSION = "5.0.1";
+    private static final String KLOV_POM_PROPERTIES = "/META-INF/maven/com.aventstack/klov-reporter/pom.properties";
+
+    private final int batchSize;
+    private final long lingerMillis;
+    private final BlockingQueue<Write> queue;
+    private final Thread thread;
+
+    KlovBulkWriter(int batchSize, long lingerMillis, int queueSize) {
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMillis = Math.max(0, lingerMillis);
+        this.queue = new ArrayBlockingQueue<>(Math.max(this.batchSize, queueSize));
+        this.thread = new Thread(this::run, "extent-klov-writer");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Replaces the MongoDB connection the reporter opened from its
+     * initialization params with one whose writes go through this writer.
+     * Returns false, leaving the reporter to write directly, when the
+     * connection cannot be replaced
+     */
+    boolean install(ExtentKlovReporter klov, Properties params) {
+        String version = klovVersion();
+        if (!KLOV_VERSION.equals(version)) {
+            logger.warning("Klov bulk writes need klov-reporter " + KLOV_VERSION + ", found "
+                    + (version == null ? "an unknown version" : version) + "; writing Klov documents directly");
+            return false;
+        }
+        Field field;
+        try {
+            field = ExtentKlovReporter.class.getDeclaredField(MONGO_CLIENT_FIELD);
+        } catch (NoSuchFieldException e) {
+            field = null;
+        }
+        if (field == null || field.getType() != MongoClient.class || Modifier.isStatic(field.getModifiers())) {
+            logger.warning("Unable to batch Klov writes, ExtentKlovReporter has no " + MONGO_CLIENT_FIELD
+                    + " connection; writing Klov documents directly");
+            return false;
+        }
+        MongoClient client;
+        String host = params.getProperty(MONGODB_HOST);
+        String port = params.getProperty(MONGODB_PORT);
+        String uri = params.getProperty(MONGODB_URI);
+        if (host != null && port != null && port.trim().matches("\\d+"))
+            client = new BulkMongoClient(new ServerAddress(host, Integer.parseInt(port.trim())));
+        else if (host != null)
+            client = new BulkMongoClient(new ServerAddress(host));
+        else if (uri != null)
+            client = new BulkMongoClient(new MongoClientURI(uri));
+        else
+            return false;
+        try {
+            field.setAccessible(true);
+            MongoClient opened = (MongoClient) field.get(klov);
+            field.set(klov, client);
+            if (opened != null)
+                opened.close();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to batch Klov writes, writing them directly", e);
+            client.close();
+            return false;
+        }
+        start();
+        return true;
+    }
+
+    /**
+     * Version of the klov-reporter artifact on the classpath, or null when it
+     * cannot be read
+     */
+    static String klovVersion() {
+        try (InputStream in = ExtentKlovReporter.class.getResourceAsStream(KLOV_POM_PROPERTIES)) {
+            if (in == null)
+                return null;
+            Properties properties = new Properties();
+            properties.load(in);
+            return properties.getProperty("version");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts the background thread, which {@link #install} does; writes to a
+     * collection wrapped without installing are only written once started
+     */
+    void start() {
+        if (!thread.isAlive())
+            thread.start();
+    }
+
+    /**
+     * Returns a view of the collection whose writes are queued
+     */
+    @SuppressWarnings("unchecked")
+    MongoCollection<Document> wrap(MongoCollection<Document> collection) {
+        return (MongoCollection<Document>) Proxy.newProxyInstance(KlovBulkWriter.class.getClassLoader(),
+                new Class<?>[]{ MongoCollection.class }, new CollectionHandler(collection));
+    }
+
+    /**
+     * Waits until the writes queued before this call are written
+     */
+    void drain() {
+        if (!thread.isAlive())
+            return;
+        Write marker = new Write(null, null);
+        try {
+            queue.put(marker);
+            marker.written.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues the write, waiting for room in the queue. An interrupt does not
+     * drop the write, it is kept for the caller
+     */
+    private void enqueue(MongoCollection<Document> collection, WriteModel<Document> model) {
+        Write write = new Write(collection, model);
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(write);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private void run() {
+        List<Write> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                // a drain waiting on the batch cuts the linger short
+                boolean draining = batch.get(0).model == null;
+                while (!draining && batch.size() < batchSize) {
+                    int from = batch.size();
+                    if (queue.drainTo(batch, batchSize - batch.size()) == 0) {
+                        long remaining = deadline - System.nanoTime();
+                        Write next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                        if (next == null)
+                            break;
+                        batch.add(next);
+                    }
+                    for (int i = from; i < batch.size(); i++)
+                        draining |= batch.get(i).model == null;
+                }
+            } catch (InterruptedException e) {
+                // keeps writing until the JVM exits; the thread is a daemon
+            }
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes the batch as one ordered bulk write per collection, then
+     * releases the drains waiting on it. Collections are independent, so only
+     * the order of the writes to each collection is kept
+     */
+    private void writeBatch(List<Write> batch) {
+        Map<MongoCollection<Document>, List<WriteModel<Document>>> writes = new LinkedHashMap<>();
+        for (Write w : batch) {
+            if (w.model != null)
+                writes.computeIfAbsent(w.collection, x -> new ArrayList<>()).add(w.model);
+        }
+        writes.forEach((collection, models) -> write(collection, coalesce(models)));
+        batch.stream().filter(x -> x.model == null).forEach(x -> x.written.countDown());
+    }
+
+    /**
+     * Folds a {@code $set} of a document inserted in the same batch into the
+     * insert, as Klov updates a node right after inserting it and its parents
+     * with every child. An ordered bulk write goes to the server as one command
+     * per run of writes of the same kind, so inserts are also moved ahead of
+     * the updates of a single document by id queued between them, which an
+     * insert of another document cannot affect. Any other write, and an update
+     * of a document inserted later in the batch, keeps its place
+     */
+    @SuppressWarnings("unchecked")
+    static List<WriteModel<Document>> coalesce(List<WriteModel<Document>> models) {
+        // inserts a $set may still be folded into, and the ids updated so far
+        Map<Object, Document> inserted = new HashMap<>();
+        Set<Object> updated = new HashSet<>();
+        List<WriteModel<Document>> coalesced = new ArrayList<>(models.size());
+        // inserts and updates by id since the last write keeping its place
+        List<WriteModel<Document>> inserts = new ArrayList<>();
+        List<WriteModel<Document>> updates = new ArrayList<>();
+        Set<Object> updatedSinceBarrier = new HashSet<>();
+        for (WriteModel<Document> model : models) {
+            if (model instanceof InsertOneModel) {
+                Document doc = ((InsertOneModel<Document>) model).getDocument();
+                Object id = doc.get("_id");
+                if (updatedSinceBarrier.contains(id)) {
+                    // an update queued before the insert matched nothing
+                    moveInsertsAhead(coalesced, inserts, updates);
+                    updatedSinceBarrier.clear();
+                }
+                inserted.put(id, doc);
+                inserts.add(model);
+                continue;
+            }
+            Object id = model instanceof UpdateOneModel ? idOf(((UpdateOneModel<Document>) model).getFilter()) : null;
+            if (id != null) {
+                Document set = setOf(((UpdateOneModel<Document>) model).getUpdate());
+                if (set != null && inserted.containsKey(id) && !updated.contains(id)) {
+                    inserted.get(id).putAll(set);
+                    continue;
+                }
+                updated.add(id);
+                updatedSinceBarrier.add(id);
+                updates.add(model);
+                continue;
+            }
+            moveInsertsAhead(coalesced, inserts, updates);
+            updatedSinceBarrier.clear();
+            // the write may change documents inserted before it
+            inserted.clear();
+            coalesced.add(model);
+        }
+        moveInsertsAhead(coalesced, inserts, updates);
+        return coalesced;
+    }
+
+    private static void moveInsertsAhead(List<WriteModel<Document>> coalesced, List<WriteModel<Document>> inserts,
+            List<WriteModel<Document>> updates) {
+        coalesced.addAll(inserts);
+        coalesced.addAll(updates);
+        inserts.clear();
+        updates.clear();
+    }
+
+    /**
+     * Id of the only document the filter matches, or null when it is not an
+     * {@code _id} equality
+     */
+    private static Object idOf(Bson filter) {
+        if (!(filter instanceof Document) || ((Document) filter).size() != 1)
+            return null;
+        Object id = ((Document) filter).get("_id");
+        // a document may be an operator such as $in, matching any number
+        return id instanceof Bson || id instanceof Map ? null : id;
+    }
+
+    private static Document setOf(Bson update) {
+        if (!(update instanceof Document) || ((Document) update).size() != 1)
+            return null;
+        Object set = ((Document) update).get("$set");
+        return set instanceof Document ? (Document) set : null;
+    }
+
+    private void write(MongoCollection<Document> collection, List<WriteModel<Document>> models) {
+        try {
+            collection.bulkWrite(models, new BulkWriteOptions().ordered(true));
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to write " + models.size() + " Klov documents to "
+                    + collection.getNamespace(), e);
+        }
+    }
+
+    @Override
+    public Observer<ReportEntity> getReportObserver() {
+        return new Observer<ReportEntity>() {
+            @Override
+            public void onSubscribe(Disposable d) {
+            }
+
+            @Override
+            public void onNext(ReportEntity value) {
+                drain();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+            }
+
+            @Override
+            public void onComplete() {
+                drain();
+            }
+        };
+    }
+
+    private static final class Write {
+        private final MongoCollection<Document> collection;
+        private final WriteModel<Document> model;
+        // released once written, for the marker queued by a drain
+        private final CountDownLatch written = new CountDownLatch(1);
+
+        private Write(MongoCollection<Document> collection, WriteModel<Document> model) {
+            this.collection = collection;
+            this.model = model;
+        }
+    }
+
+    /**
+     * Queues the single-document writes Klov issues; any other call waits for
+     * the queue and goes to the collection
+     */
+    private final class CollectionHandler implements InvocationHandler {
+        private final MongoCollection<Document> collection;
+
+        private CollectionHandler(MongoCollection<Document> collection) {
+            this.collection = collection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            int arity = args == null ? 0 : args.length;
+            if (name.equals("insertOne") && arity == 1) {
+                Document doc = (Document) args[0];
+                if (!doc.containsKey("_id"))
+                    doc.put("_id", new ObjectId());
+                enqueue(collection, new InsertOneModel<>(doc));
+                return null;
+            }
+            if (name.equals("updateOne") && arity == 2) {
+                enqueue(collection, new UpdateOneModel<>((Bson) args[0], (Bson) args[1]));
+                return UpdateResult.unacknowledged();
+            }
+            if (name.equals("updateMany") && arity == 2) {
+                enqueue(collection, new UpdateManyModel<>((Bson) args[0], (Bson) args[1]));
+                return UpdateResult.unacknowledged();
+            }
+            if (name.equals("replaceOne") && arity == 2) {
+                enqueue(collection, new ReplaceOneModel<>((Bson) args[0], (Document) args[1]));
+                return UpdateResult.unacknowledged();
+            }
+            if (name.equals("deleteOne") && arity == 1) {
+                enqueue(collection, new DeleteOneModel<>((Bson) args[0]));
+                return DeleteResult.unacknowledged();
+            }
+            if (name.equals("deleteMany") && arity == 1) {
+                enqueue(collection, new DeleteManyModel<>((Bson) args[0]));
+                return DeleteResult.unacknowledged();
+            }
+            if (method.getDeclaringClass() == Object.class)
+                return method.invoke(this, args);
+            if (!name.startsWith("get"))
+                drain();
+            try {
+                return method.invoke(collection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Connection whose collections queue their writes through this writer
+     */
+    private final class BulkMongoClient extends MongoClient {
+
+        private BulkMongoClient(ServerAddress address) {
+            super(address);
+        }
+
+        private BulkMongoClient(MongoClientURI uri) {
+            super(uri);
+        }
+
+        @Override
+        public MongoDatabase getDatabase(String databaseName) {
+            MongoDatabase db = super.getDatabase(databaseName);
+            return (MongoDatabase) Proxy.newProxyInstance(KlovBulkWriter.class.getClassLoader(),
+                    new Class<?>[]{ MongoDatabase.class }, (proxy, method, args) -> {
+                        if (method.getDeclaringClass() == Object.class)
+                            return method.invoke(db, args);
+                        boolean collection = method.getName().equals("getCollection");
+                        if (!collection && !method.getName().startsWith("get"))
+                            drain();
+                        Object value;
+                        try {
+                            value = method.invoke(db, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        return collection && ((MongoCollection<?>) value).getDocumentClass() == Document.class
+                                ? wrap(castDocuments(value))
+                                : value;
+                    });
+        }
+
+        @Override
+        public void close() {
+            drain();
+            super.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> castDocuments(Object collection) {
+        return (MongoCollection<Document>) collection;
+    }
+}
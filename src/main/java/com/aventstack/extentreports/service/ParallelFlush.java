@@ -0,0 +1,205 @@
+package com.aventstack.extentreports.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.aventstack.extentreports.observer.ReportObserver;
+import com.aventstack.extentreports.observer.entity.ReportEntity;
+
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Flushes the attached reporters concurrently, each on its own thread, so the
+ * end of the run waits for the slowest reporter rather than for all of them in
+ * turn. A flush logs how long each reporter took, at {@link Level#FINE}.
+ *
+ * <p>
+ * The reporters render the live report, which the adapter holds off updating
+ * until the flush returns, so a flush always waits for every reporter to
+ * finish. The timeout is when a reporter still rendering is interrupted, not
+ * a bound on the flush: the flush waits for it to stop, and a reporter that
+ * ignores the interrupt delays the flush until it is done, but never renders
+ * while the report changes or is cut short when the JVM exits. Each reporter
+ * is given its own subscription, so one that disposes of it after failing is
+ * no longer flushed without affecting the others.
+ * </p>
+ */
+final class ParallelFlush implements ReportObserver<ReportEntity> {
+
+    private static final Logger logger = Logger.getLogger(ParallelFlush.class.getName());
+
+    private final long timeoutSeconds;
+    private final List<Target> targets = new CopyOnWriteArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param timeoutSeconds how long a reporter may render before it is
+     *        interrupted, without limit when 0
+     */
+    ParallelFlush(long timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    void add(String name, Observer<ReportEntity> observer) {
+        Target target = new Target(name, observer);
+        observer.onSubscribe(target.disposable);
+        targets.add(target);
+    }
+
+    private void flush(ReportEntity entity) {
+        lock.lock();
+        try {
+            long start = System.nanoTime();
+            for (Target target : targets) {
+                target.submit(entity);
+            }
+            for (Target target : targets) {
+                target.await(start);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Observer<ReportEntity> getReportObserver() {
+        return new Observer<ReportEntity>() {
+            @Override
+            public void onSubscribe(Disposable d) {
+            }
+
+            @Override
+            public void onNext(ReportEntity value) {
+                flush(value);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                targets.forEach(x -> x.observer.onError(e));
+            }
+
+            @Override
+            public void onComplete() {
+                targets.forEach(x -> x.observer.onComplete());
+            }
+        };
+    }
+
+    private final class Target {
+        private final String name;
+        private final Observer<ReportEntity> observer;
+        private final Disposable disposable = Disposable.empty();
+        private final ExecutorService executor;
+        // the flush of the reporter started by the current flush, if any
+        private Future<Long> current;
+        // thread rendering the reporter, guarded by interruptLock so that an
+        // interrupt never reaches the thread after the render returns
+        private Thread rendering;
+        private final ReentrantLock interruptLock = new ReentrantLock();
+
+        private Target(String name, Observer<ReportEntity> observer) {
+            this.name = name;
+            this.observer = observer;
+            // idle between flushes, which always wait for the render to end
+            this.executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "extent-flush-" + name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        void submit(ReportEntity entity) {
+            current = null;
+            if (disposable.isDisposed()) {
+                return;
+            }
+            current = executor.submit(() -> {
+                long start = System.nanoTime();
+                setRendering(Thread.currentThread());
+                try {
+                    observer.onNext(entity);
+                } finally {
+                    setRendering(null);
+                }
+                return System.nanoTime() - start;
+            });
+        }
+
+        private void setRendering(Thread thread) {
+            interruptLock.lock();
+            try {
+                rendering = thread;
+                if (thread == null) {
+                    // clears an interrupt the render did not consume
+                    Thread.interrupted();
+                }
+            } finally {
+                interruptLock.unlock();
+            }
+        }
+
+        private void interrupt() {
+            interruptLock.lock();
+            try {
+                if (rendering != null) {
+                    rendering.interrupt();
+                }
+            } finally {
+                interruptLock.unlock();
+            }
+        }
+
+        /**
+         * Waits for the reporter to finish. After the timeout, counted from
+         * the start of the flush as the reporters run concurrently, or when
+         * the flushing thread is interrupted, the reporter is interrupted and
+         * waited for, without limit, until it stops
+         */
+        void await(long flushStart) {
+            Future<Long> flush = current;
+            if (flush == null) {
+                return;
+            }
+            long deadline = flushStart + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            boolean stopping = false;
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    long took = timeoutSeconds > 0 && !stopping
+                            ? flush.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)
+                            : flush.get();
+                    logger.fine("Flushed the " + name + " reporter in " + TimeUnit.NANOSECONDS.toMillis(took) + " ms");
+                    break;
+                } catch (TimeoutException e) {
+                    logger.warning("The " + name + " reporter did not finish flushing within " + timeoutSeconds
+                            + "s, interrupting it and waiting for it to stop");
+                    stopping = true;
+                    interrupt();
+                } catch (InterruptedException e) {
+                    // the report may not change until the reporter stops
+                    interrupted = true;
+                    if (!stopping) {
+                        stopping = true;
+                        interrupt();
+                    }
+                } catch (ExecutionException e) {
+                    logger.log(Level.SEVERE, "Unable to flush the " + name + " reporter", e.getCause());
+                    break;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.aventstack.extentreports.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.model.Log;
+import com.aventstack.extentreports.model.Report;
+import com.aventstack.extentreports.model.ReportStats;
+import com.aventstack.extentreports.model.Test;
+import com.aventstack.extentreports.observer.ReportObserver;
+import com.aventstack.extentreports.observer.entity.ReportEntity;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * Writes the Spark report as one page per feature, or per N features, and a
+ * small index linking to them with the status counts of each feature, so that
+ * opening a page does not grow with the whole run. The pages are rendered in
+ * parallel, each by its own {@link ExtentSparkReporter} from a report holding
+ * only its features.
+ *
+ * <p>
+ * As a reporter, each flush renders only the pages whose features changed
+ * since the previous flush, and deletes the pages left over from a previous
+ * flush with more features. A page counts as changed when a test it holds was
+ * added, or changed its name, description, status or times, or its number of
+ * logs, media, attributes or children. Features can also be streamed in with
+ * {@link #append(Test)}, which renders each page once it is full and lets go
+ * of its features, and {@link #close()}, so that a report is written without
+ * holding the whole run in memory.
+ * </p>
+ *
+ * <p>
+ * The index takes the place of the single page at the configured path; the
+ * pages are written next to it, named after it with a page number, so that
+ * links relative to the report, such as screenshots, still resolve.
+ * </p>
+ */
+public final class SparkSplitReporter implements ReportObserver<ReportEntity> {
+
+    private static final Logger logger = Logger.getLogger(SparkSplitReporter.class.getName());
+
+    private static final String INDEX_FILE_NAME = "Index.html";
+
+    private final Path index;
+    private final String pagePrefix;
+    private final Pattern pageNamePattern;
+    private final int featuresPerPage;
+    private final Function<String, ExtentSparkReporter> pageFactory;
+    private final Map<Integer, ExtentSparkReporter> pages = new ConcurrentHashMap<>();
+    // fingerprint of the features each page was last rendered from
+    private final Map<Integer, Long> rendered = new ConcurrentHashMap<>();
+    private final int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private volatile String reportName;
+    private ExecutorService executor;
+
+    // features appended and not yet rendered, and the pages being rendered
+    private final List<Test> appended = new ArrayList<>();
+    private final Deque<Future<?>> appendedPages = new ArrayDeque<>();
+    private final List<FeatureSummary> appendedSummaries = new ArrayList<>();
+
+    public SparkSplitReporter(String out, int featuresPerPage) {
+        this(out, featuresPerPage, ExtentSparkReporter::new);
+    }
+
+    /**
+     * @param pageFactory creates and configures the reporter writing the page
+     *        at the given path
+     */
+    public SparkSplitReporter(String out, int featuresPerPage, Function<String, ExtentSparkReporter> pageFactory) {
+        Path path = Paths.get(out);
+        this.index = out.endsWith(".html") || out.endsWith(".htm") ? path : path.resolve(INDEX_FILE_NAME);
+        String name = index.getFileName().toString();
+        this.pagePrefix = name.substring(0, name.lastIndexOf('.')) + "-";
+        this.pageNamePattern = Pattern.compile(Pattern.quote(pagePrefix) + "(\\d{4,})\\.html");
+        this.featuresPerPage = Math.max(1, featuresPerPage);
+        this.pageFactory = pageFactory;
+    }
+
+    private void flush(Report report) {
+        List<Test> features = new ArrayList<>(report.getTestList());
+        int pageCount = (features.size() + featuresPerPage - 1) / featuresPerPage;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int page = 0; page < pageCount; page++) {
+            List<Test> chunk = features.subList(page * featuresPerPage,
+                    Math.min((page + 1) * featuresPerPage, features.size()));
+            long fingerprint = fingerprint(report, chunk);
+            Long previous = rendered.get(page);
+            if (previous != null && previous == fingerprint && Files.exists(pagePath(page))) {
+                continue;
+            }
+            int number = page;
+            tasks.add(() -> {
+                render(number, pageReport(report, chunk));
+                rendered.put(number, fingerprint);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor().invokeAll(tasks)) {
+                await(future);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        deletePagesFrom(pageCount);
+        List<FeatureSummary> summaries = new ArrayList<>(features.size());
+        for (int i = 0; i < features.size(); i++) {
+            summaries.add(new FeatureSummary(features.get(i), i / featuresPerPage));
+        }
+        writeIndex(report.getStartTime(), report.getEndTime(), summaries);
+    }
+
+    /**
+     * Adds the feature to the report, rendering its page once it holds
+     * {@code featuresPerPage} features. At most as many pages as there are
+     * processors are rendered at a time; appending waits for the oldest
+     * otherwise
+     */
+    public void append(Test feature) {
+        appendedSummaries.add(new FeatureSummary(feature, appendedSummaries.size() / featuresPerPage));
+        appended.add(feature);
+        if (appended.size() == featuresPerPage) {
+            renderAppended();
+        }
+    }
+
+    /**
+     * Renders the last page of the appended features, writes the index and
+     * deletes the pages left over from a previous report with more features
+     */
+    public void close() {
+        if (!appended.isEmpty()) {
+            renderAppended();
+        }
+        while (!appendedPages.isEmpty()) {
+            await(appendedPages.poll());
+        }
+        int pageCount = (appendedSummaries.size() + featuresPerPage - 1) / featuresPerPage;
+        deletePagesFrom(pageCount);
+        Date start = appendedSummaries.stream().map(x -> x.startTime).min(Date::compareTo).orElseGet(Date::new);
+        Date end = appendedSummaries.stream().map(x -> x.endTime).max(Date::compareTo).orElse(start);
+        writeIndex(start, end, appendedSummaries);
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    private void renderAppended() {
+        int number = (appendedSummaries.size() - 1) / featuresPerPage;
+        List<Test> chunk = new ArrayList<>(appended);
+        appended.clear();
+        appendedPages.add(executor().submit(() -> {
+            render(number, pageReport(null, chunk));
+            // the page is not rendered again, and lets go of its features
+            pages.remove(number);
+        }));
+        while (appendedPages.size() > threads) {
+            await(appendedPages.poll());
+        }
+    }
+
+    private void render(int page, Report report) {
+        ExtentSparkReporter spark = pages.computeIfAbsent(page, this::createPage);
+        spark.getReportObserver().onNext(ReportEntity.builder().report(report).build());
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            logger.log(Level.SEVERE, "Unable to write a Spark report page", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ExtentSparkReporter createPage(int page) {
+        ExtentSparkReporter spark = pageFactory.apply(pagePath(page).toString());
+        spark.getReportObserver().onSubscribe(Disposable.empty());
+        if (page == 0) {
+            String name = spark.getConf().getReportName();
+            reportName = name == null || name.isEmpty() ? "Report" : name;
+        }
+        return spark;
+    }
+
+    private Path pagePath(int page) {
+        return index.resolveSibling(pageName(page));
+    }
+
+    private String pageName(int page) {
+        return pagePrefix + String.format("%04d", page + 1) + ".html";
+    }
+
+    /**
+     * Deletes the pages numbered from the given page on, which a previous
+     * flush wrote for features the report no longer has
+     */
+    private void deletePagesFrom(int page) {
+        Path dir = index.toAbsolutePath().getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, pagePrefix + "*.html")) {
+            for (Path file : stream) {
+                Matcher matcher = pageNamePattern.matcher(file.getFileName().toString());
+                if (matcher.matches() && Integer.parseInt(matcher.group(1)) > page) {
+                    Files.deleteIfExists(file);
+                    pages.remove(Integer.parseInt(matcher.group(1)) - 1);
+                    rendered.remove(Integer.parseInt(matcher.group(1)) - 1);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to delete the stale pages of the Spark report " + index, e);
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "extent-spark-split");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Identifies what the page renders: the tests of its features, down to the
+     * number of logs, media, attributes and children of each, and the logs and
+     * system info of the report
+     */
+    private static long fingerprint(Report report, List<Test> features) {
+        long hash = 31L * report.getLogs().size() + report.getSystemEnvInfo().size();
+        for (Test feature : features) {
+            hash = 31 * hash + fingerprint(feature);
+        }
+        return hash;
+    }
+
+    private static long fingerprint(Test test) {
+        long hash = test.getId();
+        hash = 31 * hash + Objects.hashCode(test.getName());
+        hash = 31 * hash + Objects.hashCode(test.getDescription());
+        hash = 31 * hash + test.getStatus().ordinal();
+        hash = 31 * hash + test.getStartTime().getTime();
+        hash = 31 * hash + test.getEndTime().getTime();
+        hash = 31 * hash + test.getLogs().size();
+        hash = 31 * hash + test.getGeneratedLog().size();
+        hash = 31 * hash + test.getMedia().size();
+        hash = 31 * hash + test.getAuthorSet().size();
+        hash = 31 * hash + test.getCategorySet().size();
+        hash = 31 * hash + test.getDeviceSet().size();
+        List<Test> children = new ArrayList<>(test.getChildren());
+        hash = 31 * hash + children.size();
+        for (Test child : children) {
+            hash = 31 * hash + fingerprint(child);
+        }
+        return hash;
+    }
+
+    /**
+     * Report holding only the given features, with the stats, attributes and
+     * exceptions of their tests, the way Extent builds them as tests are added,
+     * and the logs and system info of the source report, if any
+     */
+    private static Report pageReport(Report report, List<Test> features) {
+        Report page = Report.builder().build();
+        if (report != null) {
+            page.getLogs().addAll(report.getLogs());
+            page.getSystemEnvInfo().addAll(report.getSystemEnvInfo());
+            page.getStats().setAnalysisStrategy(report.getStats().getAnalysisStrategy());
+        }
+        page.getTestList().addAll(features);
+        page.getStats().update(features);
+        features.forEach(x -> addContexts(page, x));
+        if (features.isEmpty()) {
+            page.setStartTime(report.getStartTime());
+            page.setEndTime(report.getEndTime());
+        } else {
+            page.applyOverrideConf();
+        }
+        return page;
+    }
+
+    private static void addContexts(Report page, Test test) {
+        test.getAuthorSet().forEach(x -> page.getAuthorCtx().addContext(x, test));
+        test.getCategorySet().forEach(x -> page.getCategoryCtx().addContext(x, test));
+        test.getDeviceSet().forEach(x -> page.getDeviceCtx().addContext(x, test));
+        for (Log log : new ArrayList<>(test.getLogs())) {
+            if (log.hasException()) {
+                page.getExceptionInfoCtx().addContext(log.getException(), test);
+            }
+        }
+        new ArrayList<>(test.getChildren()).forEach(x -> addContexts(page, x));
+    }
+
+    private void writeIndex(Date start, Date end, List<FeatureSummary> features) {
+        String name = reportName == null ? "Report" : reportName;
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        Map<Status, Long> featureTotals = new EnumMap<>(Status.class);
+        Map<Status, Long> scenarioTotals = new EnumMap<>(Status.class);
+        Map<Status, Long> stepTotals = new EnumMap<>(Status.class);
+        for (FeatureSummary feature : features) {
+            feature.features.forEach((k, v) -> featureTotals.merge(k, v, Long::sum));
+            feature.scenarios.forEach((k, v) -> scenarioTotals.merge(k, v, Long::sum));
+            feature.steps.forEach((k, v) -> stepTotals.merge(k, v, Long::sum));
+        }
+        StringBuilder html = new StringBuilder(4096 + features.size() * 256);
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>")
+                .append(escape(name)).append("</title>\n<style>\n")
+                .append("body{font-family:sans-serif;margin:2em;color:#333}")
+                .append("table{border-collapse:collapse;margin-bottom:2em}")
+                .append("th,td{border:1px solid #ddd;padding:4px 10px;text-align:left}")
+                .append(".pass{color:#2e7d32}.fail{color:#c62828}.skip{color:#f9a825}")
+                .append(".warning{color:#ef6c00}.info{color:#1565c0}\n</style>\n</head>\n<body>\n<h1>")
+                .append(escape(name)).append("</h1>\n<p>")
+                .append(format.format(start)).append(" &ndash; ")
+                .append(format.format(end)).append(" (")
+                .append(duration(end.getTime() - start.getTime()))
+                .append(")</p>\n<table>\n<tr><th></th><th>Passed</th><th>Failed</th><th>Skipped</th><th>Others</th></tr>\n");
+        summaryRow(html, "Features", featureTotals);
+        summaryRow(html, "Scenarios", scenarioTotals);
+        summaryRow(html, "Steps", stepTotals);
+        html.append("</table>\n<table>\n<tr><th>Feature</th><th>Status</th><th>Scenarios</th><th>Duration</th></tr>\n");
+        for (FeatureSummary feature : features) {
+            String status = feature.status.toLower();
+            html.append("<tr><td><a href=\"").append(pageName(feature.page)).append("\">")
+                    .append(escape(feature.name)).append("</a></td><td class=\"").append(status).append("\">")
+                    .append(status).append("</td><td>").append(counts(feature.scenarios)).append("</td><td>")
+                    .append(duration(feature.endTime.getTime() - feature.startTime.getTime()))
+                    .append("</td></tr>\n");
+        }
+        html.append("</table>\n</body>\n</html>\n");
+        try {
+            if (index.getParent() != null) {
+                Files.createDirectories(index.getParent());
+            }
+            Files.write(index, html.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Unable to write the Spark report index " + index, e);
+        }
+    }
+
+    private static void summaryRow(StringBuilder html, String label, Map<Status, Long> counts) {
+        long others = counts.entrySet().stream()
+                .filter(x -> x.getKey() != Status.PASS && x.getKey() != Status.FAIL && x.getKey() != Status.SKIP)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        html.append("<tr><td>").append(label).append("</td><td class=\"pass\">")
+                .append(counts.getOrDefault(Status.PASS, 0L)).append("</td><td class=\"fail\">")
+                .append(counts.getOrDefault(Status.FAIL, 0L)).append("</td><td class=\"skip\">")
+                .append(counts.getOrDefault(Status.SKIP, 0L)).append("</td><td>").append(others)
+                .append("</td></tr>\n");
+    }
+
+    private static String counts(Map<Status, Long> counts) {
+        return Status.getResolvedHierarchy(new ArrayList<>(counts.keySet())).stream()
+                .filter(x -> counts.getOrDefault(x, 0L) > 0)
+                .map(x -> "<span class=\"" + x.toLower() + "\">" + counts.get(x) + " " + x.toLower() + "</span>")
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String duration(long millis) {
+        return millis < 1000 ? millis + "ms" : String.format("%.1fs", millis / 1000.0);
+    }
+
+    private static String escape(String text) {
+        return text == null ? "" : text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                .replace("\"", "&quot;");
+    }
+
+    /**
+     * What the index shows of a feature, kept instead of the feature when
+     * features are appended
+     */
+    private static final class FeatureSummary {
+        private final String name;
+        private final Status status;
+        private final Date startTime;
+        private final Date endTime;
+        private final int page;
+        private final Map<Status, Long> features;
+        private final Map<Status, Long> scenarios;
+        private final Map<Status, Long> steps;
+
+        private FeatureSummary(Test feature, int page) {
+            ReportStats stats = new ReportStats();
+            stats.update(Collections.singletonList(feature));
+            this.name = feature.getName();
+            this.status = feature.getStatus();
+            this.startTime = feature.getStartTime();
+            this.endTime = feature.getEndTime();
+            this.page = page;
+            this.features = new EnumMap<>(Status.class);
+            this.scenarios = new EnumMap<>(Status.class);
+            this.steps = new EnumMap<>(Status.class);
+            features.putAll(stats.getParent());
+            scenarios.putAll(stats.getChild());
+            steps.putAll(stats.getGrandchild());
+        }
+    }
+
+    @Override
+    public Observer<ReportEntity> getReportObserver() {
+        return new Observer<ReportEntity>() {
+            @Override
+            public void onSubscribe(Disposable d) {
+            }
+
+            @Override
+            public void onNext(ReportEntity value) {
+                flush(value.getReport());
+            }
+
+            @Override
+            public void onError(Throwable e) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        };
+    }
+}
@@ -0,0 +1,254 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class EmbedWriterTest {
+
+    private final List<byte[]> bodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AdapterMetrics metrics = new AdapterMetrics();
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    @After
+    public void stop() {
+        release.countDown();
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts a server answering the n-th request, counted from 1, with the
+     * given status code
+     */
+    private URL start(IntUnaryOperator status, boolean blocking) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            int n = requests.incrementAndGet();
+            bodies.add(readAll(exchange.getRequestBody()));
+            if (blocking) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] response = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.applyAsInt(n), response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/embedded1.png");
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private EmbedWriter writer(int threads, int queueSize, long submitTimeoutMillis, boolean dedupe, int retries) {
+        return new EmbedWriter(threads, queueSize, submitTimeoutMillis, dedupe,
+                new EmbedWriter.HttpSettings(2000, 2000, retries, 10), metrics);
+    }
+
+    @Test
+    public void retriesAnUploadAfterAServerError() throws Exception {
+        URL url = start(n -> n == 1 ? 503 : 200, false);
+        EmbedWriter writer = writer(1, 4, 1000, false, 3);
+        byte[] data = "png".getBytes(StandardCharsets.UTF_8);
+        writer.write(data, url);
+        assertTrue(writer.flush(10, TimeUnit.SECONDS));
+        assertEquals(2, requests.get());
+        assertArrayEquals(data, bodies.get(0));
+        assertArrayEquals(data, bodies.get(1));
+        assertEquals(1, metrics.getEmbedsWritten());
+        assertEquals(data.length, metrics.getEmbedBytesWritten());
+    }
+
+    @Test
+    public void stopsRetryingAfterTheConfiguredRetries() throws Exception {
+        URL url = start(n -> 503, false);
+        EmbedWriter writer = writer(1, 4, 1000, false, 2);
+        writer.write(new byte[] { 1 }, url);
+        assertTrue(writer.flush(10, TimeUnit.SECONDS));
+        assertEquals(3, requests.get());
+        assertEquals(0, metrics.getEmbedsWritten());
+    }
+
+    @Test
+    public void doesNotRetryClientErrors() throws Exception {
+        URL url = start(n -> 404, false);
+        EmbedWriter writer = writer(1, 4, 1000, false, 3);
+        writer.write(new byte[] { 1 }, url);
+        assertTrue(writer.flush(10, TimeUnit.SECONDS));
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void flushGivesUpAfterTheTimeoutAndCanBeRetried() throws Exception {
+        URL url = start(n -> 200, true);
+        EmbedWriter writer = writer(1, 4, 1000, false, 0);
+        writer.write(new byte[] { 1 }, url);
+        long start = System.nanoTime();
+        assertFalse(writer.flush(200, TimeUnit.MILLISECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        assertEquals(1, writer.getPendingCount());
+        release.countDown();
+        assertTrue(writer.flush(10, TimeUnit.SECONDS));
+        assertEquals(0, writer.getPendingCount());
+        assertEquals(1, metrics.getEmbedsWritten());
+    }
+
+    @Test
+    public void dropsWritesAfterTheSubmitTimeoutInsteadOfUploadingOnTheCaller() throws Exception {
+        URL url = start(n -> 200, true);
+        EmbedWriter writer = writer(1, 1, 200, false, 0);
+        writer.write(new byte[] { 1 }, url);
+        while (requests.get() == 0) {
+            Thread.sleep(10);
+        }
+        // the worker is busy with the first write and the second fills the queue
+        writer.write(new byte[] { 2 }, url);
+        long start = System.nanoTime();
+        writer.write(new byte[] { 3 }, url);
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("waited " + waited + " ms", waited >= 200 && waited < 5000);
+        assertEquals(1, requests.get());
+        release.countDown();
+        assertTrue(writer.flush(10, TimeUnit.SECONDS));
+        assertEquals(2, requests.get());
+        assertArrayEquals(new byte[] { 2 }, bodies.get(1));
+        assertEquals(2, metrics.getEmbedsWritten());
+    }
+
+    @Test
+    public void writesLocalFilesOnTheCallerWhenSaturated() throws Exception {
+        URL url = start(n -> 200, true);
+        Path dir = Files.createTempDirectory("embeds");
+        EmbedWriter writer = writer(1, 1, 200, false, 0);
+        writer.write(new byte[] { 1 }, url);
+        while (requests.get() == 0) {
+            Thread.sleep(10);
+        }
+        // the worker is busy with the upload and the second fills the queue
+        writer.write(new byte[] { 2 }, url);
+        Path local = dir.resolve("embedded1.png");
+        long start = System.nanoTime();
+        writer.write(new byte[] { 3 }, local.toUri().toURL());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 200);
+        assertArrayEquals(new byte[] { 3 }, Files.readAllBytes(local));
+        assertEquals(2, writer.getPendingCount());
+        release.countDown();
+        assertTrue(writer.flush(10, TimeUnit.SECONDS));
+        assertEquals(2, requests.get());
+        assertEquals(3, metrics.getEmbedsWritten());
+        Files.delete(local);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void writesAPayloadAgainAfterItsWriteFailed() throws Exception {
+        Path dir = Files.createTempDirectory("embeds");
+        Path blocker = Files.createFile(dir.resolve("blocker"));
+        AtomicInteger names = new AtomicInteger();
+        boolean[] broken = { true };
+        Function<String, URL> toUrl = name -> {
+            try {
+                // a file in place of the directory fails the first write
+                return (broken[0] ? blocker.resolve(name) : dir.resolve(name)).toUri().toURL();
+            } catch (MalformedURLException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        EmbedWriter writer = writer(1, 4, 1000, true, 0);
+        byte[] data = "same".getBytes(StandardCharsets.UTF_8);
+        String failed = writer.write(data, "png", () -> "embedded" + names.incrementAndGet() + ".png", toUrl);
+        assertTrue(writer.flush(10, TimeUnit.SECONDS));
+        assertEquals(0, metrics.getEmbedsWritten());
+        broken[0] = false;
+        String written = writer.write(data, "png", () -> "embedded" + names.incrementAndGet() + ".png", toUrl);
+        assertTrue(writer.flush(10, TimeUnit.SECONDS));
+        assertNotEquals(failed, written);
+        assertArrayEquals(data, Files.readAllBytes(dir.resolve(written)));
+        assertEquals(written, writer.write(data, "png", () -> "embedded" + names.incrementAndGet() + ".png", toUrl));
+        assertEquals(2, names.get());
+        Files.delete(dir.resolve(written));
+        Files.delete(blocker);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void writesIdenticalPayloadsOnceWithDedupe() throws Exception {
+        Path dir = Files.createTempDirectory("embeds");
+        AtomicInteger names = new AtomicInteger();
+        Function<String, URL> toUrl = name -> {
+            try {
+                return dir.resolve(name).toUri().toURL();
+            } catch (MalformedURLException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        EmbedWriter writer = writer(2, 4, 1000, true, 0);
+        byte[] data = "same".getBytes(StandardCharsets.UTF_8);
+        String first = writer.write(data, "png", () -> "embedded" + names.incrementAndGet() + ".png", toUrl);
+        String second = writer.write(data.clone(), "png", () -> "embedded" + names.incrementAndGet() + ".png", toUrl);
+        String other = writer.write(data, "txt", () -> "embedded" + names.incrementAndGet() + ".txt", toUrl);
+        assertTrue(writer.flush(10, TimeUnit.SECONDS));
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertEquals(2, names.get());
+        assertArrayEquals(data, Files.readAllBytes(dir.resolve(first)));
+        assertEquals(2, metrics.getEmbedsWritten());
+
+        EmbedWriter plain = writer(1, 4, 1000, false, 0);
+        assertNotEquals(plain.write(data, "png", () -> "embedded" + names.incrementAndGet() + ".png", toUrl),
+                plain.write(data, "png", () -> "embedded" + names.incrementAndGet() + ".png", toUrl));
+        assertTrue(plain.flush(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= names.get(); i++) {
+            Files.deleteIfExists(dir.resolve("embedded" + i + (i == 2 ? ".txt" : ".png")));
+        }
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,258 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cucumber.api.HookTestStep;
+import cucumber.api.HookType;
+import cucumber.api.PickleStepTestStep;
+import cucumber.api.Result;
+import cucumber.api.TestCase;
+import gherkin.pickles.Argument;
+import gherkin.pickles.PickleCell;
+import gherkin.pickles.PickleLocation;
+import gherkin.pickles.PickleRow;
+import gherkin.pickles.PickleTable;
+import gherkin.pickles.PickleTag;
+
+public class EventJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static <T> T stub(Class<T> type, Object... namesAndValues) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    for (int i = 0; i < namesAndValues.length; i += 2) {
+                        if (namesAndValues[i].equals(method.getName())) {
+                            return namesAndValues[i + 1];
+                        }
+                    }
+                    return null;
+                }));
+    }
+
+    private static TestCase testCase() {
+        return stub(TestCase.class, "getUri", "file:sample.feature", "getLine", 6, "getName", "Add", "getTags",
+                Collections.singletonList(new PickleTag(new PickleLocation(5, 3), "@fast")));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Byte> types(Path file) throws IOException {
+        List<Byte> types = new ArrayList<>();
+        JournalReplay.readRecords(file, (type, in) -> types.add(type));
+        return types;
+    }
+
+    private static List<String> writes(Path file) throws IOException {
+        List<String> texts = new ArrayList<>();
+        JournalReplay.readRecords(file, (type, in) -> {
+            assertEquals(EventJournal.WRITE, type);
+            in.readLong();
+            in.readInt();
+            texts.add(readString(in));
+        });
+        return texts;
+    }
+
+    @Test
+    public void framesEachEventAsARecord() throws IOException {
+        EventJournal journal = new EventJournal(folder.getRoot().toPath());
+        journal.source("file:sample.feature", "Feature: Sample");
+        int id = journal.caseStarted(testCase());
+        List<Argument> table = Collections.singletonList(new PickleTable(Arrays.asList(
+                new PickleRow(Arrays.asList(new PickleCell(new PickleLocation(8, 7), "a"),
+                        new PickleCell(new PickleLocation(8, 11), "b"))))));
+        journal.stepStarted(id, stub(PickleStepTestStep.class, "getCodeLocation", "Steps.add()", "getStepText",
+                "I add", "getStepLine", 7, "getPattern", "I add", "getStepArgument", table));
+        journal.stepFinished(id, new Result(Result.Type.PASSED, 5L, null));
+        journal.stepStarted(id, stub(HookTestStep.class, "getCodeLocation", "Hooks.after()", "getHookType",
+                HookType.After));
+        journal.write(id, "written");
+        journal.embed(id, "image/png", "embedded1.png");
+        journal.caseFinished(id, new Result(Result.Type.FAILED, 7L, new IllegalStateException("boom")));
+        journal.runFinished();
+        journal.write(id, "after the run");
+        journal.close();
+
+        Path file = journal.getFile();
+        assertEquals(Arrays.asList(EventJournal.SOURCE, EventJournal.CASE_STARTED, EventJournal.STEP_STARTED,
+                EventJournal.STEP_FINISHED, EventJournal.STEP_STARTED, EventJournal.WRITE, EventJournal.EMBED,
+                EventJournal.CASE_FINISHED), types(file));
+
+        List<Object> decoded = new ArrayList<>();
+        JournalReplay.readRecords(file, (type, in) -> {
+            assertTrue(in.readLong() > 0);
+            switch (type) {
+            case EventJournal.SOURCE:
+                decoded.add(readString(in));
+                decoded.add(readString(in));
+                break;
+            case EventJournal.CASE_STARTED:
+                decoded.add(in.readInt());
+                decoded.add(readString(in));
+                decoded.add(in.readInt());
+                decoded.add(readString(in));
+                decoded.add(in.readInt());
+                decoded.add(readString(in));
+                break;
+            case EventJournal.STEP_STARTED:
+                decoded.add(in.readInt());
+                decoded.add(readString(in));
+                byte kind = in.readByte();
+                decoded.add(kind);
+                if (kind == EventJournal.HOOK_STEP) {
+                    decoded.add(readString(in));
+                    break;
+                }
+                decoded.add(readString(in));
+                decoded.add(in.readInt());
+                decoded.add(readString(in));
+                decoded.add(in.readByte());
+                decoded.add(in.readInt());
+                decoded.add(in.readInt());
+                decoded.add(readString(in));
+                decoded.add(readString(in));
+                break;
+            case EventJournal.STEP_FINISHED:
+            case EventJournal.CASE_FINISHED:
+                decoded.add(in.readInt());
+                decoded.add(readString(in));
+                decoded.add(in.readLong());
+                if (in.readBoolean()) {
+                    decoded.add(readString(in));
+                    decoded.add(readString(in));
+                    assertTrue(readString(in).startsWith("java.lang.IllegalStateException: boom"));
+                }
+                break;
+            default:
+                decoded.add(in.readInt());
+                decoded.add(readString(in));
+                if (type == EventJournal.EMBED) {
+                    decoded.add(readString(in));
+                }
+            }
+            assertEquals(-1, in.read());
+        });
+        assertEquals(Arrays.<Object> asList("file:sample.feature", "Feature: Sample",
+                id, "file:sample.feature", 6, "Add", 1, "@fast",
+                id, "Steps.add()", EventJournal.PICKLE_STEP, "I add", 7, "I add", EventJournal.DATA_TABLE, 1, 2, "a", "b",
+                id, "PASSED", 5L,
+                id, "Hooks.after()", EventJournal.HOOK_STEP, "After",
+                id, "written",
+                id, "image/png", "embedded1.png",
+                id, "FAILED", 7L, IllegalStateException.class.getName(), "boom"), decoded);
+    }
+
+    @Test
+    public void skipsTheUnusedEndOfEachRegion() throws IOException {
+        EventJournal journal = new EventJournal(folder.getRoot().toPath(), 256);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            texts.add("text " + i + " " + String.join("", Collections.nCopies(i % 7, "padding ")));
+        }
+        // larger than a region, which is mapped to fit it
+        texts.add(String.join("", Collections.nCopies(100, "large ")));
+        texts.add("after the large record");
+        for (String text : texts) {
+            journal.write(1, text);
+        }
+        journal.close();
+        assertTrue(Files.size(journal.getFile()) > 256 * 10);
+        assertEquals(texts, writes(journal.getFile()));
+    }
+
+    @Test
+    public void readsAJournalLeftOpenUpToItsZeroPadding() throws IOException {
+        EventJournal journal = new EventJournal(folder.getRoot().toPath(), 4096);
+        journal.write(1, "first");
+        journal.write(1, "second");
+        // as the operating system leaves it when the JVM dies
+        assertEquals(4096, Files.size(journal.getFile()));
+        assertEquals(Arrays.asList("first", "second"), writes(journal.getFile()));
+        journal.close();
+        assertEquals(Arrays.asList("first", "second"), writes(journal.getFile()));
+    }
+
+    @Test
+    public void stopsAtARecordCutShort() throws IOException {
+        EventJournal journal = new EventJournal(folder.getRoot().toPath(), 256);
+        for (int i = 0; i < 20; i++) {
+            journal.write(1, "record " + i);
+        }
+        journal.close();
+        Path file = journal.getFile();
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        List<String> texts = writes(file);
+        assertEquals(19, texts.size());
+        assertEquals("record 18", texts.get(18));
+
+        // cut inside the marker skipping the end of the first region
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, 250));
+        texts = writes(file);
+        assertTrue(texts.size() > 0 && texts.size() < 19);
+    }
+
+    @Test
+    public void ignoresRecordsAppendedAfterClose() throws IOException {
+        EventJournal journal = new EventJournal(folder.getRoot().toPath());
+        journal.write(1, "before");
+        journal.close();
+        byte[] closed = Files.readAllBytes(journal.getFile());
+        journal.write(1, "after");
+        journal.close();
+        assertArrayEquals(closed, Files.readAllBytes(journal.getFile()));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void rejectsFilesThatAreNotJournals() throws IOException {
+        Path file = folder.newFile("other.bin").toPath();
+        Files.write(file, "not a journal".getBytes(StandardCharsets.UTF_8));
+        try {
+            JournalReplay.readRecords(file, (type, in) -> fail());
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("not an event journal"));
+        }
+    }
+
+    @Test
+    public void writesNothingWithoutRecords() throws IOException {
+        EventJournal journal = new EventJournal(folder.getRoot().toPath());
+        journal.close();
+        assertEquals(0, folder.getRoot().list().length);
+    }
+}
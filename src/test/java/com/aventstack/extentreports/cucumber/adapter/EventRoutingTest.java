@@ -0,0 +1,148 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.gherkin.model.ScenarioOutline;
+import com.aventstack.extentreports.service.ExtentService;
+
+import cucumber.api.Result;
+import cucumber.api.TestCase;
+import cucumber.api.event.TestCaseFinished;
+import cucumber.api.event.TestCaseStarted;
+import cucumber.api.event.TestSourceRead;
+import cucumber.api.event.TestStepFinished;
+import cucumber.api.event.TestStepStarted;
+import cucumber.api.event.WriteEvent;
+
+public class EventRoutingTest {
+
+    private static final Result PASSED = new Result(Result.Type.PASSED, 1L, null);
+
+    private final SyntheticEventPublisher publisher = new SyntheticEventPublisher();
+
+    @Before
+    public void setUp() {
+        new ExtentCucumberAdapter("").setEventPublisher(publisher);
+    }
+
+    private SyntheticFeature feature(int index, int scenarios, int steps, int examples) {
+        SyntheticFeature feature = new SyntheticFeature(index, scenarios, steps, examples);
+        publisher.publish(new TestSourceRead(0L, 0L, feature.uri, feature.source));
+        return feature;
+    }
+
+    private void start(TestCase testCase) {
+        publisher.publish(new TestCaseStarted(0L, 0L, testCase));
+    }
+
+    private void step(TestCase testCase, int step) {
+        publisher.publish(new TestStepStarted(0L, 0L, testCase, testCase.getTestSteps().get(step)));
+        publisher.publish(new TestStepFinished(0L, 0L, testCase, testCase.getTestSteps().get(step), PASSED));
+    }
+
+    private void finish(TestCase testCase) {
+        publisher.publish(new TestCaseFinished(0L, 0L, testCase, PASSED));
+    }
+
+    private static void onThread(Runnable task) throws InterruptedException {
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+    }
+
+    private static com.aventstack.extentreports.model.Test feature(int index) {
+        String name = "Feature " + index;
+        return ExtentService.getInstance().getReport().getTestList().stream()
+                .filter(x -> name.equals(x.getName()))
+                .findFirst()
+                .get();
+    }
+
+    private static List<String> children(com.aventstack.extentreports.model.Test test) {
+        return test.getChildren().stream().map(x -> x.getName()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void routesTestCasesOfDifferentOutlinesInterleavedOnOneThread() {
+        SyntheticFeature first = feature(1901, 1, 2, 2);
+        SyntheticFeature second = feature(1902, 1, 2, 2);
+        TestCase firstExample = first.testCases.get(1);
+        TestCase secondExample = second.testCases.get(2);
+        TestCase firstScenario = first.testCases.get(0);
+
+        start(firstExample);
+        start(secondExample);
+        step(firstExample, 0);
+        step(secondExample, 0);
+        start(firstScenario);
+        step(secondExample, 1);
+        step(firstScenario, 0);
+        finish(secondExample);
+        step(firstExample, 1);
+        step(firstScenario, 1);
+        finish(firstExample);
+        finish(firstScenario);
+
+        com.aventstack.extentreports.model.Test firstFeature = feature(1901);
+        assertEquals(Arrays.asList("Outline", "Scenario 0"), children(firstFeature));
+        com.aventstack.extentreports.model.Test firstOutline = firstFeature.getChildren().get(0);
+        assertSame(ScenarioOutline.class, firstOutline.getBddType());
+        assertEquals(1, firstOutline.getChildren().size());
+        assertEquals(Arrays.asList("Given step 0 with 0", "When step 1 with 0"),
+                children(firstOutline.getChildren().get(0)));
+        assertEquals(Arrays.asList("Given step 0 of scenario 0", "When step 1 of scenario 0"),
+                children(firstFeature.getChildren().get(1)));
+
+        com.aventstack.extentreports.model.Test secondFeature = feature(1902);
+        assertEquals(Arrays.asList("Outline"), children(secondFeature));
+        com.aventstack.extentreports.model.Test secondOutline = secondFeature.getChildren().get(0);
+        assertEquals(1, secondOutline.getChildren().size());
+        assertEquals(Arrays.asList("Given step 0 with 1", "When step 1 with 1"),
+                children(secondOutline.getChildren().get(0)));
+    }
+
+    @Test
+    public void routesATestCaseWhoseEventsArePublishedFromSeveralThreads() throws InterruptedException {
+        SyntheticFeature source = feature(1903, 2, 2, 0);
+        TestCase moving = source.testCases.get(0);
+        TestCase staying = source.testCases.get(1);
+        AtomicReference<ExtentTest> currentStep = new AtomicReference<>();
+
+        onThread(() -> start(moving));
+        start(staying);
+        onThread(() -> {
+            step(moving, 0);
+            // the thread did not start the test case, so has no current step
+            currentStep.set(ExtentCucumberAdapter.getCurrentStep());
+        });
+        step(staying, 0);
+        onThread(() -> {
+            publisher.publish(new TestStepStarted(0L, 0L, moving, moving.getTestSteps().get(1)));
+            publisher.publish(new WriteEvent(0L, 0L, moving, "written"));
+            publisher.publish(new TestStepFinished(0L, 0L, moving, moving.getTestSteps().get(1), PASSED));
+        });
+        step(staying, 1);
+        onThread(() -> finish(moving));
+        finish(staying);
+
+        assertNull(currentStep.get());
+        com.aventstack.extentreports.model.Test feature = feature(1903);
+        assertEquals(Arrays.asList("Scenario 0", "Scenario 1"), children(feature));
+        com.aventstack.extentreports.model.Test scenario = feature.getChildren().get(0);
+        assertEquals(Arrays.asList("Given step 0 of scenario 0", "When step 1 of scenario 0"), children(scenario));
+        assertEquals("written", scenario.getChildren().get(1).getLogs().get(0).getDetails());
+        assertEquals(Arrays.asList("Given step 0 of scenario 1", "When step 1 of scenario 1"),
+                children(feature.getChildren().get(1)));
+    }
+}
@@ -0,0 +1,96 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.gherkin.model.Feature;
+import com.aventstack.extentreports.gherkin.model.Given;
+import com.aventstack.extentreports.gherkin.model.Scenario;
+import com.aventstack.extentreports.model.Log;
+import com.aventstack.extentreports.model.Report;
+
+public class FeatureSpillTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ExtentReports extent = new ExtentReports();
+
+    private static String names(Report report) {
+        return report.getTestList().stream().map(x -> x.getName()).collect(Collectors.joining(","));
+    }
+
+    private static long count(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void restoresSpilledFeaturesInTheirOriginalOrder() throws IOException {
+        Path dir = folder.getRoot().toPath().resolve("spill");
+        Report report = extent.getReport();
+        FeatureSpill spill = new FeatureSpill(report, dir);
+        ExtentTest first = extent.createTest(Feature.class, "First");
+        ExtentTest failing = extent.createTest(Feature.class, "Failing");
+        ExtentTest step = failing.createNode(Scenario.class, "Broken").createNode(Given.class, "a step");
+        step.assignCategory("@slow");
+        IllegalStateException boom = new IllegalStateException("boom");
+        step.fail(boom);
+        extent.createTest(Feature.class, "Third");
+
+        spill.spill(failing.getModel());
+        spill.spill(first.getModel());
+        assertEquals("Third", names(report));
+        assertEquals(0, report.getCategoryCtx().getSet().size());
+        assertEquals(2, count(dir));
+
+        spill.restore();
+        assertEquals("First,Failing,Third", names(report));
+        assertFalse(Files.exists(dir));
+        com.aventstack.extentreports.model.Test restored = report.getTestList().get(1).getChildren().get(0)
+                .getChildren().get(0);
+        assertSame(restored.getParent().getParent(), report.getTestList().get(1));
+        assertEquals(1, report.getCategoryCtx().getSet().size());
+        Log log = restored.getLogs().get(0);
+        StringWriter printed = new StringWriter();
+        boom.printStackTrace(new PrintWriter(printed));
+        assertEquals("java.lang.IllegalStateException: boom", log.getException().getException().toString());
+        StringWriter replayed = new StringWriter();
+        log.getException().getException().printStackTrace(new PrintWriter(replayed));
+        assertEquals(printed.toString(), replayed.toString());
+        assertEquals(1, report.getExceptionInfoCtx().getSet().size());
+    }
+
+    @Test
+    public void keepsAFeatureThatCannotBeSerializedInTheReport() throws IOException {
+        Path dir = folder.getRoot().toPath().resolve("spill");
+        Report report = extent.getReport();
+        FeatureSpill spill = new FeatureSpill(report, dir);
+        ExtentTest feature = extent.createTest(Feature.class, "Odd");
+        // not a valid JSON number
+        feature.getModel().getInfoMap().put("ratio", Double.NaN);
+        spill.spill(feature.getModel());
+        assertEquals(Arrays.asList(feature.getModel()), report.getTestList());
+        assertTrue(!Files.exists(dir) || count(dir) == 0);
+        spill.restore();
+        assertEquals(Arrays.asList(feature.getModel()), report.getTestList());
+    }
+}
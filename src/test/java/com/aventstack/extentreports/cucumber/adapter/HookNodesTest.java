@@ -0,0 +1,121 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.gherkin.model.Asterisk;
+import com.aventstack.extentreports.service.ExtentService;
+
+import cucumber.api.HookTestStep;
+import cucumber.api.HookType;
+import cucumber.api.Result;
+import cucumber.api.TestCase;
+import cucumber.api.TestStep;
+import cucumber.api.event.EmbedEvent;
+import cucumber.api.event.TestCaseFinished;
+import cucumber.api.event.TestCaseStarted;
+import cucumber.api.event.TestSourceRead;
+import cucumber.api.event.TestStepFinished;
+import cucumber.api.event.TestStepStarted;
+import cucumber.api.event.WriteEvent;
+
+public class HookNodesTest {
+
+    private static final Result PASSED = new Result(Result.Type.PASSED, 1L, null);
+    private static final Result SKIPPED = new Result(Result.Type.SKIPPED, 1L, null);
+    private static final String HOOK = "Hooks.before()";
+
+    private final SyntheticEventPublisher publisher = new SyntheticEventPublisher();
+    private TestCase testCase;
+
+    private static final class Hook implements HookTestStep {
+        @Override
+        public String getCodeLocation() {
+            return HOOK;
+        }
+
+        @Override
+        public HookType getHookType() {
+            return HookType.Before;
+        }
+    }
+
+    /**
+     * Runs the only scenario of a new feature, with a before hook doing what
+     * it is given ahead of its one step, and returns the scenario's node
+     */
+    private com.aventstack.extentreports.model.Test run(int index, Runnable hook, Result hookResult) {
+        new ExtentCucumberAdapter("").setEventPublisher(publisher);
+        SyntheticFeature feature = new SyntheticFeature(index, 1, 1, 0);
+        publisher.publish(new TestSourceRead(0L, 0L, feature.uri, feature.source));
+        testCase = feature.testCases.get(0);
+        TestStep hookStep = new Hook();
+        TestStep step = testCase.getTestSteps().get(0);
+        publisher.publish(new TestCaseStarted(0L, 0L, testCase));
+        publisher.publish(new TestStepStarted(0L, 0L, testCase, hookStep));
+        hook.run();
+        publisher.publish(new TestStepFinished(0L, 0L, testCase, hookStep, hookResult));
+        publisher.publish(new TestStepStarted(0L, 0L, testCase, step));
+        publisher.publish(new TestStepFinished(0L, 0L, testCase, step, PASSED));
+        publisher.publish(new TestCaseFinished(0L, 0L, testCase, PASSED));
+        String name = "Feature " + index;
+        return ExtentService.getInstance().getReport().getTestList().stream()
+                .filter(x -> name.equals(x.getName()))
+                .findFirst()
+                .get()
+                .getChildren()
+                .get(0);
+    }
+
+    private static List<String> children(com.aventstack.extentreports.model.Test scenario) {
+        return scenario.getChildren().stream().map(x -> x.getName()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void createsNoNodeForAPassingHookThatReportsNothing() {
+        com.aventstack.extentreports.model.Test scenario = run(1101, () -> {
+        }, PASSED);
+        assertEquals(Arrays.asList("Given step 0 of scenario 0"), children(scenario));
+    }
+
+    @Test
+    public void createsOneNodeForAHookThatLogsWritesAndEmbeds() {
+        com.aventstack.extentreports.model.Test scenario = run(1102, () -> {
+            ExtentCucumberAdapter.addTestStepLog("logged");
+            publisher.publish(new WriteEvent(0L, 0L, testCase, "written"));
+            publisher.publish(new EmbedEvent(0L, 0L, testCase, "{}".getBytes(StandardCharsets.UTF_8),
+                    "image/png"));
+        }, PASSED);
+        assertEquals(Arrays.asList(HOOK, "Given step 0 of scenario 0"), children(scenario));
+        com.aventstack.extentreports.model.Test hook = scenario.getChildren().get(0);
+        assertSame(Asterisk.class, hook.getBddType());
+        assertEquals(3, hook.getLogs().size());
+        assertEquals("logged", hook.getLogs().get(0).getDetails());
+        assertEquals("written", hook.getLogs().get(1).getDetails());
+    }
+
+    @Test
+    public void reportsAFailedHook() {
+        com.aventstack.extentreports.model.Test scenario = run(1103, () -> {
+        }, new Result(Result.Type.FAILED, 1L, new IllegalStateException("boom")));
+        com.aventstack.extentreports.model.Test hook = scenario.getChildren().get(0);
+        assertEquals(HOOK, hook.getName());
+        assertEquals(Status.FAIL, hook.getStatus());
+        assertEquals("boom", hook.getLogs().get(0).getException().getException().getMessage());
+    }
+
+    @Test
+    public void removesTheNodeOfASkippedHook() {
+        com.aventstack.extentreports.model.Test scenario = run(1104,
+                () -> ExtentCucumberAdapter.addTestStepLog("logged"), SKIPPED);
+        assertEquals(Arrays.asList("Given step 0 of scenario 0"), children(scenario));
+    }
+}
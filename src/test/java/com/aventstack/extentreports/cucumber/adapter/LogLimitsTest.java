@@ -0,0 +1,170 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import cucumber.api.TestCase;
+
+public class LogLimitsTest {
+
+    private final List<byte[]> sideFiles = new CopyOnWriteArrayList<>();
+
+    private LogLimits limits(long maxLogBytes, long maxStepBytes, long maxRunBytes, int previewLength) {
+        return new LogLimits(maxLogBytes, maxStepBytes, maxRunBytes, previewLength, data -> {
+            sideFiles.add(data);
+            return "side" + sideFiles.size() + ".txt";
+        });
+    }
+
+    private static ScenarioContext context() {
+        TestCase testCase = (TestCase) Proxy.newProxyInstance(TestCase.class.getClassLoader(),
+                new Class<?>[] { TestCase.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getUri":
+                        return "file:sample.feature";
+                    case "getLine":
+                        return 1;
+                    default:
+                        return null;
+                    }
+                });
+        return new ScenarioContext(testCase);
+    }
+
+    @Test
+    public void countsUtf8Bytes() {
+        assertEquals(0, LogLimits.utf8Length(""));
+        assertEquals(3, LogLimits.utf8Length("abc"));
+        assertEquals(2, LogLimits.utf8Length("é"));
+        assertEquals(3, LogLimits.utf8Length("€"));
+        assertEquals(4, LogLimits.utf8Length("😀"));
+        // an unpaired surrogate is encoded as a replacement character
+        assertEquals(3, LogLimits.utf8Length("\ud83d"));
+        assertEquals(4, LogLimits.utf8Length("\ud83da"));
+        String mixed = "aé€😀";
+        assertEquals(mixed.getBytes(StandardCharsets.UTF_8).length, LogLimits.utf8Length(mixed));
+    }
+
+    @Test
+    public void keepsTextWithinTheBudgets() {
+        LogLimits limits = limits(10, 0, 0, 4);
+        assertNull(limits.limit(context(), (String) null));
+        assertSame("0123456789", limits.limit(context(), "0123456789"));
+        assertTrue(sideFiles.isEmpty());
+    }
+
+    @Test
+    public void movesTextOverTheLogBudgetToASideFile() {
+        LogLimits limits = limits(10, 0, 0, 4);
+        String text = "<b>&0123456789";
+        String limited = limits.limit(context(), text);
+        assertEquals(1, sideFiles.size());
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), sideFiles.get(0));
+        assertEquals("&lt;b&gt;&amp;&hellip; <a href='side1.txt' target='_blank'>full output (14 bytes)</a>", limited);
+    }
+
+    @Test
+    public void measuresTheBudgetInBytesNotCharacters() {
+        LogLimits limits = limits(5, 0, 0, 10);
+        // three characters, six bytes
+        String text = "ééé";
+        assertTrue(limits.limit(context(), text).contains("full output (6 bytes)"));
+        assertSame("ééa", limits.limit(context(), "ééa"));
+    }
+
+    @Test
+    public void neverSplitsASurrogatePairInThePreview() {
+        LogLimits limits = limits(4, 0, 0, 2);
+        String limited = limits.limit(context(), "a😀bcdef");
+        assertTrue(limited, limited.startsWith("a&hellip;"));
+    }
+
+    @Test
+    public void sharesTheStepBudgetUntilTheNextStep() {
+        LogLimits limits = limits(0, 10, 0, 2);
+        ScenarioContext context = context();
+        assertSame("012345", limits.limit(context, "012345"));
+        assertSame("6789", limits.limit(context, "6789"));
+        assertTrue(limits.limit(context, "x").contains("side1.txt"));
+        // another scenario has a budget of its own
+        assertSame("0123456789", limits.limit(context(), "0123456789"));
+        context.setStep(null);
+        assertSame("0123456789", limits.limit(context, "0123456789"));
+    }
+
+    @Test
+    public void chargesPreviewsToTheRunBudgetWithoutRefusingThem() {
+        LogLimits limits = limits(0, 0, 10, 3);
+        assertSame("0123456789", limits.limit(context(), "0123456789"));
+        String limited = limits.limit(context(), "abcdef");
+        assertTrue(limited.startsWith("abc&hellip;"));
+        limited = limits.limit(context(), "gh");
+        assertTrue(limited.startsWith("gh&hellip;"));
+        assertEquals(2, sideFiles.size());
+    }
+
+    @Test
+    public void neverExceedsTheRunBudgetAcrossThreads() throws Exception {
+        LogLimits limits = limits(0, 0, 1000, 0);
+        AtomicInteger kept = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 100; j++) {
+                    if ("0123456789".equals(limits.limit(null, "0123456789"))) {
+                        kept.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100, kept.get());
+    }
+
+    @Test
+    public void keepsTheTypeAndFramesOfTruncatedFailures() {
+        LogLimits limits = limits(100, 0, 0, 5);
+        IllegalStateException small = new IllegalStateException("small");
+        small.setStackTrace(new StackTraceElement[0]);
+        assertSame(small, limits.limit(context(), small));
+
+        IllegalStateException large = new IllegalStateException("a very long failure message",
+                new RuntimeException("cause"));
+        Throwable limited = limits.limit(context(), large);
+        assertNotSame(large, limited);
+        assertTrue(limited instanceof LogLimits.TruncatedThrowable);
+        assertArrayEquals(large.getStackTrace(), limited.getStackTrace());
+        assertNull(limited.getCause());
+        assertTrue(limited.toString(), limited.toString().startsWith("java.lang.IllegalStateException: a ver... "));
+        assertTrue(limited.getMessage().contains("full stack trace"));
+        assertTrue(limited.getMessage().contains("side1.txt"));
+        StringWriter sw = new StringWriter();
+        large.printStackTrace(new PrintWriter(sw));
+        assertEquals(sw.toString(), new String(sideFiles.get(0), StandardCharsets.UTF_8));
+    }
+}
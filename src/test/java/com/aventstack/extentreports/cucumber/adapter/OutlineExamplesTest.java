@@ -0,0 +1,114 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+
+import gherkin.AstBuilder;
+import gherkin.Parser;
+import gherkin.ast.Examples;
+import gherkin.ast.GherkinDocument;
+import gherkin.ast.ScenarioOutline;
+
+public class OutlineExamplesTest {
+
+    private static final String SOURCE = String.join("\n",
+            "Feature: Outlines",
+            "",
+            "  Scenario Outline: Add",
+            "    When I add <a> and <b>",
+            "",
+            "    Examples: first",
+            "      | a | b |",
+            "      | 1 | 2 |",
+            "      | 3 | 4 |",
+            "      | 5 | 6 |",
+            "",
+            "    Examples:",
+            "      | a  | b  |",
+            "      | 10 | 20 |",
+            "",
+            "    Examples: third",
+            "      | a   | b   |",
+            "      | 100 | 200 |",
+            "");
+
+    private static List<Examples> examples() {
+        GherkinDocument document = new Parser<GherkinDocument>(new AstBuilder()).parse(SOURCE);
+        return ((ScenarioOutline) document.getFeature().getChildren().get(0)).getExamples();
+    }
+
+    private static ExtentTest outline(String description) {
+        return new ExtentReports().createTest("Add", description);
+    }
+
+    @Test
+    public void rendersNameHeaderAndBodyRows() {
+        String markup = OutlineExamples.renderBlock(examples().get(0), 10);
+        assertTrue(markup.startsWith("first<table"));
+        for (String cell : new String[] { "a", "b", "1", "2", "3", "4", "5", "6" }) {
+            assertTrue(cell, markup.contains(">" + cell + "<"));
+        }
+        assertFalse(markup.contains("not shown"));
+    }
+
+    @Test
+    public void omitsTheNameOfUnnamedBlocks() {
+        assertTrue(OutlineExamples.renderBlock(examples().get(1), 10).startsWith("<table"));
+    }
+
+    @Test
+    public void truncatesBodyRowsBeyondTheLimit() {
+        String markup = OutlineExamples.renderBlock(examples().get(0), 1);
+        assertTrue(markup.contains(">1<"));
+        assertFalse(markup.contains(">3<"));
+        assertFalse(markup.contains(">5<"));
+        assertTrue(markup.endsWith("<p>2 more rows not shown</p>"));
+        assertTrue(OutlineExamples.renderBlock(examples().get(0), 2).endsWith("<p>1 more row not shown</p>"));
+        String headerOnly = OutlineExamples.renderBlock(examples().get(0), 0);
+        assertTrue(headerOnly.contains(">a<"));
+        assertTrue(headerOnly.endsWith("<p>3 more rows not shown</p>"));
+    }
+
+    @Test
+    public void rendersEachBlockOnceInSourceOrder() {
+        List<Examples> examples = examples();
+        ExtentTest outline = outline("Adds numbers");
+        OutlineExamples outlineExamples = new OutlineExamples(outline);
+        outlineExamples.add(examples.get(2));
+        outlineExamples.add(examples.get(0));
+        outlineExamples.add(examples.get(2));
+        outlineExamples.add(examples.get(0));
+        outlineExamples.render(x -> "[" + x.getLocation().getLine() + "]");
+        assertEquals("Adds numbers[6][16]", outline.getModel().getDescription());
+    }
+
+    @Test
+    public void rerendersFromTheOriginalDescriptionOnlyWhenABlockWasAdded() {
+        List<Examples> examples = examples();
+        ExtentTest outline = outline(null);
+        OutlineExamples outlineExamples = new OutlineExamples(outline);
+        int[] renders = new int[1];
+        outlineExamples.add(examples.get(1));
+        outlineExamples.render(x -> {
+            renders[0]++;
+            return "[" + x.getLocation().getLine() + "]";
+        });
+        outlineExamples.render(x -> {
+            renders[0]++;
+            return "[" + x.getLocation().getLine() + "]";
+        });
+        assertEquals(1, renders[0]);
+        assertEquals("[12]", outline.getModel().getDescription());
+        outlineExamples.add(examples.get(0));
+        outlineExamples.render(x -> "[" + x.getLocation().getLine() + "]");
+        assertEquals("[6][12]", outline.getModel().getDescription());
+    }
+}
@@ -0,0 +1,125 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ReportEventQueueTest {
+
+    @Test
+    public void appliesTasksInOrderBeforeShutdownReturns() {
+        ReportEventQueue queue = new ReportEventQueue(4, ReportEventQueue.Overflow.BLOCK);
+        List<Integer> applied = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            int n = i;
+            queue.publish(() -> applied.add(n), false);
+        }
+        queue.shutdown();
+        assertEquals(100, applied.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) applied.get(i));
+        }
+    }
+
+    @Test
+    public void appliesTasksOnThePublishingThreadAfterShutdown() {
+        ReportEventQueue queue = new ReportEventQueue(4, ReportEventQueue.Overflow.BLOCK);
+        queue.shutdown();
+        Thread[] appliedOn = new Thread[1];
+        queue.publish(() -> appliedOn[0] = Thread.currentThread(), true);
+        assertSame(Thread.currentThread(), appliedOn[0]);
+    }
+
+    @Test(timeout = 10000)
+    public void releasesProducersBlockedOnAFullQueueAtShutdown() throws Exception {
+        ReportEventQueue queue = new ReportEventQueue(1, ReportEventQueue.Overflow.BLOCK);
+        CountDownLatch consumerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.publish(() -> {
+            consumerBusy.countDown();
+            await(release);
+        }, false);
+        consumerBusy.await();
+        // fills the queue, so the next producer blocks
+        queue.publish(() -> { }, false);
+        CountDownLatch blockedApplied = new CountDownLatch(1);
+        Thread producer = new Thread(() -> queue.publish(blockedApplied::countDown, false));
+        producer.start();
+        Thread shutdown = new Thread(queue::shutdown);
+        shutdown.start();
+        release.countDown();
+        shutdown.join();
+        producer.join();
+        assertTrue(blockedApplied.await(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void discardsDroppableTasksWhenFull() throws Exception {
+        ReportEventQueue queue = new ReportEventQueue(1, ReportEventQueue.Overflow.DISCARD);
+        CountDownLatch consumerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.publish(() -> {
+            consumerBusy.countDown();
+            await(release);
+        }, false);
+        consumerBusy.await();
+        List<String> applied = new CopyOnWriteArrayList<>();
+        queue.publish(() -> applied.add("first"), true);
+        queue.publish(() -> applied.add("second"), true);
+        release.countDown();
+        queue.shutdown();
+        assertEquals(1, applied.size());
+        assertEquals("first", applied.get(0));
+    }
+
+    @Test(timeout = 10000)
+    public void queuesStructuralTasksFromAnInterruptedThread() throws Exception {
+        ReportEventQueue queue = new ReportEventQueue(1, ReportEventQueue.Overflow.DISCARD);
+        CountDownLatch consumerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> applied = new CopyOnWriteArrayList<>();
+        boolean[] stillInterrupted = new boolean[2];
+        Thread producer = new Thread(() -> {
+            Thread.currentThread().interrupt();
+            // room in the queue
+            queue.publish(() -> {
+                consumerBusy.countDown();
+                await(release);
+                applied.add("first");
+            }, false);
+            stillInterrupted[0] = Thread.interrupted();
+            await(consumerBusy);
+            Thread.currentThread().interrupt();
+            queue.publish(() -> applied.add("second"), false);
+            // a full queue: waits for room despite the interrupt
+            queue.publish(() -> applied.add("third"), false);
+            stillInterrupted[1] = Thread.currentThread().isInterrupted();
+        });
+        producer.start();
+        consumerBusy.await();
+        Thread.sleep(300);
+        assertTrue(producer.isAlive());
+        release.countDown();
+        producer.join();
+        queue.shutdown();
+        assertEquals(Arrays.asList("first", "second", "third"), applied);
+        assertTrue(stillInterrupted[0]);
+        assertTrue(stillInterrupted[1]);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.gherkin.model.Feature;
+import com.aventstack.extentreports.gherkin.model.Given;
+import com.aventstack.extentreports.gherkin.model.Scenario;
+import com.aventstack.extentreports.gherkin.model.ScenarioOutline;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class ShardMergerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ExtentReports extent = new ExtentReports();
+
+    private ExtentTest feature(String name, long startTime) {
+        ExtentTest feature = extent.createTest(Feature.class, name);
+        feature.getModel().setStartTime(new Date(startTime));
+        return feature;
+    }
+
+    private static void scenario(ExtentTest parent, String name, boolean pass) {
+        ExtentTest step = parent.createNode(Scenario.class, name).createNode(Given.class, "a step");
+        if (pass) {
+            step.pass("passed");
+        } else {
+            step.fail("failed");
+        }
+    }
+
+    private static ExtentTest outline(ExtentTest feature, String name) {
+        return feature.createNode(ScenarioOutline.class, name);
+    }
+
+    private static JsonArray readJson(Path out) throws IOException {
+        return new JsonParser().parse(new String(Files.readAllBytes(out.resolve("json/extent.json")),
+                StandardCharsets.UTF_8)).getAsJsonArray();
+    }
+
+    private static List<String> names(JsonElement test) {
+        List<String> names = new ArrayList<>();
+        for (JsonElement child : test.getAsJsonObject().getAsJsonArray("children")) {
+            names.add(child.getAsJsonObject().get("name").getAsString());
+        }
+        return names;
+    }
+
+    @Test
+    public void mergesTheExamplesOfAnOutlineByItsLine() throws IOException {
+        Path shards = folder.newFolder("shards").toPath();
+        FeatureShard first = new FeatureShard(shards);
+        ExtentTest feature = feature("Sums", 1000);
+        ExtentTest add = outline(feature, "Add");
+        scenario(add, "Add 1", true);
+        ExtentTest sameName = outline(feature, "Add");
+        scenario(sameName, "Add 3", true);
+        first.append("file:sums.feature", feature.getModel(), new int[] { 5, 12 });
+        first.close();
+
+        FeatureShard second = new FeatureShard(shards);
+        ExtentTest copy = feature("Sums", 500);
+        ExtentTest addCopy = outline(copy, "Add");
+        scenario(addCopy, "Add 2", false);
+        scenario(copy, "Subtract", true);
+        second.append("file:sums.feature", copy.getModel(), new int[] { 5, 0 });
+        second.close();
+
+        Path out = folder.newFolder("out").toPath();
+        assertEquals(1, ShardMerger.merge(shards, out, 1));
+        JsonArray features = readJson(out);
+        assertEquals(1, features.size());
+        JsonObject merged = features.get(0).getAsJsonObject();
+        assertEquals("FAIL", merged.get("status").getAsString());
+        List<String> children = names(merged);
+        assertEquals(3, children.size());
+        assertTrue(children.contains("Subtract"));
+        for (JsonElement child : merged.getAsJsonArray("children")) {
+            List<String> examples = names(child);
+            if (examples.contains("Add 1")) {
+                assertEquals(2, examples.size());
+                assertTrue(examples.contains("Add 2"));
+                assertEquals("FAIL", child.getAsJsonObject().get("status").getAsString());
+            } else if (examples.contains("Add 3")) {
+                assertEquals(1, examples.size());
+            }
+        }
+        String page = new String(Files.readAllBytes(out.resolve("spark/Index-0001.html")), StandardCharsets.UTF_8);
+        assertTrue(page.contains("Add 2"));
+    }
+
+    @Test
+    public void keepsOutlinesOfShardsWithoutLinesApart() throws IOException {
+        Path shards = folder.newFolder("shards").toPath();
+        FeatureShard first = new FeatureShard(shards);
+        ExtentTest feature = feature("Sums", 1000);
+        scenario(outline(feature, "Add"), "Add 1", true);
+        first.append("file:sums.feature", feature.getModel(), null);
+        ExtentTest copy = feature("Sums", 2000);
+        scenario(outline(copy, "Add"), "Add 2", true);
+        first.append("file:sums.feature", copy.getModel(), null);
+        first.close();
+
+        Path out = folder.newFolder("out").toPath();
+        ShardMerger.merge(shards, out, 1);
+        assertEquals(2, names(readJson(out).get(0)).size());
+    }
+
+    @Test
+    public void writesTheFeaturesInTheOrderTheyStartedAPageAtATime() throws IOException {
+        Path shards = folder.newFolder("shards").toPath();
+        FeatureShard first = new FeatureShard(shards);
+        ExtentTest late = feature("Late", 3000);
+        scenario(late, "Late scenario", true);
+        first.append("file:late.feature", late.getModel(), new int[1]);
+        ExtentTest early = feature("Early", 1000);
+        scenario(early, "Early scenario", true);
+        first.append("file:early.feature", early.getModel(), new int[1]);
+        first.close();
+
+        FeatureShard second = new FeatureShard(shards);
+        ExtentTest middle = feature("Middle", 2000);
+        scenario(middle, "Middle scenario", false);
+        second.append("file:middle.feature", middle.getModel(), new int[1]);
+        second.close();
+        // a feature cut short when the JVM died
+        try (Stream<Path> files = Files.list(shards)) {
+            Files.write(files.sorted().findFirst().get(), "{\"uri\":\"file:cut.feature\",\"feature\":{\"name\":".getBytes(
+                    StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        }
+
+        Path out = folder.newFolder("out").toPath();
+        assertEquals(3, ShardMerger.merge(shards, out, 2));
+        JsonArray features = readJson(out);
+        assertEquals(3, features.size());
+        assertEquals("Early", features.get(0).getAsJsonObject().get("name").getAsString());
+        assertEquals("Middle", features.get(1).getAsJsonObject().get("name").getAsString());
+        assertEquals("Late", features.get(2).getAsJsonObject().get("name").getAsString());
+        assertTrue(Files.exists(out.resolve("spark/Index-0001.html")));
+        assertTrue(Files.exists(out.resolve("spark/Index-0002.html")));
+        assertFalse(Files.exists(out.resolve("spark/Index-0003.html")));
+        String index = new String(Files.readAllBytes(out.resolve("spark/Index.html")), StandardCharsets.UTF_8);
+        assertTrue(index.contains("<a href=\"Index-0001.html\">Middle</a></td><td class=\"fail\">fail"));
+        assertTrue(index.contains("<a href=\"Index-0002.html\">Late</a>"));
+    }
+
+    @Test
+    public void keepsTheFailureOfAFailedStep() throws IOException {
+        Path shards = folder.newFolder("shards").toPath();
+        FeatureShard shard = new FeatureShard(shards);
+        ExtentTest failing = feature("Failing", 1000);
+        failing.createNode(Scenario.class, "Broken").createNode(Given.class, "a step")
+                .fail(new IllegalStateException("boom"));
+        shard.append("file:failing.feature", failing.getModel(), new int[1]);
+        ExtentTest next = feature("Next", 2000);
+        scenario(next, "Next scenario", true);
+        shard.append("file:next.feature", next.getModel(), new int[1]);
+        shard.close();
+
+        Path out = folder.newFolder("out").toPath();
+        assertEquals(2, ShardMerger.merge(shards, out, 1));
+        JsonArray features = readJson(out);
+        assertEquals(2, features.size());
+        JsonObject step = features.get(0).getAsJsonObject().getAsJsonArray("children").get(0).getAsJsonObject()
+                .getAsJsonArray("children").get(0).getAsJsonObject();
+        JsonObject exception = step.getAsJsonArray("logs").get(0).getAsJsonObject().getAsJsonObject("exception")
+                .getAsJsonObject("exception");
+        assertEquals(IllegalStateException.class.getName(), exception.get("type").getAsString());
+        assertEquals("boom", exception.get("message").getAsString());
+        assertTrue(exception.get("stackTrace").getAsString().contains("keepsTheFailureOfAFailedStep"));
+        String page = new String(Files.readAllBytes(out.resolve("spark/Index-0001.html")), StandardCharsets.UTF_8);
+        assertTrue(page.contains("java.lang.IllegalStateException: boom"));
+        assertEquals("Next", features.get(1).getAsJsonObject().get("name").getAsString());
+    }
+}
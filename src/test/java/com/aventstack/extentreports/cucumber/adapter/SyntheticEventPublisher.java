@@ -0,0 +1,43 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cucumber.api.event.Event;
+import cucumber.api.event.EventHandler;
+import cucumber.api.event.EventPublisher;
+
+/**
+ * Stands in for the Cucumber runtime: handlers are registered once during
+ * setup and events are delivered synchronously on the publishing thread, as
+ * Cucumber does for a {@code ConcurrentEventListener}
+ */
+final class SyntheticEventPublisher implements EventPublisher {
+
+    private final Map<Class<?>, List<EventHandler<?>>> handlers = new HashMap<>();
+
+    @Override
+    public <T extends Event> void registerHandlerFor(Class<T> eventType, EventHandler<T> handler) {
+        handlers.computeIfAbsent(eventType, k -> new ArrayList<>()).add(handler);
+    }
+
+    @Override
+    public <T extends Event> void removeHandlerFor(Class<T> eventType, EventHandler<T> handler) {
+        List<EventHandler<?>> list = handlers.get(eventType);
+        if (list != null) {
+            list.remove(handler);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T extends Event> void publish(T event) {
+        List<EventHandler<?>> list = handlers.get(event.getClass());
+        if (list != null) {
+            for (EventHandler<?> handler : list) {
+                ((EventHandler<T>) handler).receive(event);
+            }
+        }
+    }
+}
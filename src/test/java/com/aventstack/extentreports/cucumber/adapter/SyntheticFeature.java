@@ -0,0 +1,228 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import cucumber.api.Argument;
+import cucumber.api.PickleStepTestStep;
+import cucumber.api.TestCase;
+import cucumber.api.TestStep;
+import gherkin.pickles.PickleStep;
+import gherkin.pickles.PickleTag;
+import io.cucumber.core.api.Scenario;
+import io.cucumber.core.event.Status;
+
+/**
+ * Generates a Gherkin source with the given number of scenarios and steps,
+ * plus one scenario outline when examples are requested, along with the test
+ * cases Cucumber would compile from it
+ */
+final class SyntheticFeature {
+
+    private static final String[] KEYWORDS = {"Given ", "When ", "Then ", "And "};
+
+    final String uri;
+    final String source;
+    final List<TestCase> testCases = new ArrayList<>();
+
+    SyntheticFeature(int index, int scenarios, int steps, int examples) {
+        this.uri = "classpath:benchmark/feature_" + index + ".feature";
+        StringBuilder sb = new StringBuilder();
+        int line = 1;
+        sb.append("Feature: Feature ").append(index).append('\n');
+        line++;
+        for (int s = 0; s < scenarios; s++) {
+            sb.append('\n');
+            line++;
+            int scenarioLine = line;
+            String name = "Scenario " + s;
+            sb.append("  Scenario: ").append(name).append('\n');
+            line++;
+            List<TestStep> testSteps = new ArrayList<>();
+            for (int i = 0; i < steps; i++) {
+                String text = "step " + i + " of scenario " + s;
+                sb.append("    ").append(KEYWORDS[Math.min(i, KEYWORDS.length - 1)]).append(text).append('\n');
+                testSteps.add(new SyntheticStep(line++, text));
+            }
+            testCases.add(new SyntheticTestCase(uri, scenarioLine, name, testSteps));
+        }
+        if (examples > 0) {
+            sb.append('\n');
+            line++;
+            sb.append("  Scenario Outline: Outline\n");
+            line++;
+            List<Integer> stepLines = new ArrayList<>();
+            for (int i = 0; i < steps; i++) {
+                sb.append("    ").append(KEYWORDS[Math.min(i, KEYWORDS.length - 1)]).append("step ").append(i)
+                        .append(" with <value>\n");
+                stepLines.add(line++);
+            }
+            sb.append("\n    Examples:\n      | value |\n");
+            line += 3;
+            for (int e = 0; e < examples; e++) {
+                sb.append("      | ").append(e).append(" |\n");
+                List<TestStep> testSteps = new ArrayList<>();
+                for (int i = 0; i < steps; i++) {
+                    testSteps.add(new SyntheticStep(stepLines.get(i), "step " + i + " with " + e));
+                }
+                testCases.add(new SyntheticTestCase(uri, line++, "Outline", testSteps));
+            }
+        }
+        this.source = sb.toString();
+    }
+
+    static final class SyntheticTestCase implements TestCase {
+        private final String uri;
+        private final int line;
+        private final String name;
+        private final List<TestStep> testSteps;
+
+        SyntheticTestCase(String uri, int line, String name, List<TestStep> testSteps) {
+            this.uri = uri;
+            this.line = line;
+            this.name = name;
+            this.testSteps = testSteps;
+        }
+
+        @Override
+        public int getLine() {
+            return line;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getScenarioDesignation() {
+            return uri + ":" + line + " # Scenario: " + name;
+        }
+
+        @Override
+        public List<PickleTag> getTags() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<TestStep> getTestSteps() {
+            return testSteps;
+        }
+
+        @Override
+        public String getUri() {
+            return uri;
+        }
+    }
+
+    static final class SyntheticStep implements PickleStepTestStep {
+        private final int line;
+        private final String text;
+
+        SyntheticStep(int line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+
+        @Override
+        public String getCodeLocation() {
+            return "BenchmarkSteps.step(int)";
+        }
+
+        @Override
+        public String getPattern() {
+            return "^step (\\d+)$";
+        }
+
+        @Override
+        public PickleStep getPickleStep() {
+            return null;
+        }
+
+        @Override
+        public List<Argument> getDefinitionArgument() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<gherkin.pickles.Argument> getStepArgument() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int getStepLine() {
+            return line;
+        }
+
+        @Override
+        public String getStepLocation() {
+            return null;
+        }
+
+        @Override
+        public String getStepText() {
+            return text;
+        }
+    }
+
+    /**
+     * The glue's view of a running test case, identified like Cucumber's own
+     * by uri and line
+     */
+    static final class SyntheticScenario implements Scenario {
+        private final TestCase testCase;
+
+        SyntheticScenario(TestCase testCase) {
+            this.testCase = testCase;
+        }
+
+        @Override
+        public Collection<String> getSourceTagNames() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Status getStatus() {
+            return Status.PASSED;
+        }
+
+        @Override
+        public boolean isFailed() {
+            return false;
+        }
+
+        @Override
+        public void embed(byte[] data, String mimeType) {
+        }
+
+        @Override
+        public void embed(byte[] data, String mimeType, String name) {
+        }
+
+        @Override
+        public void write(String text) {
+        }
+
+        @Override
+        public String getName() {
+            return testCase.getName();
+        }
+
+        @Override
+        public String getId() {
+            return testCase.getUri() + ":" + testCase.getLine();
+        }
+
+        @Override
+        public String getUri() {
+            return testCase.getUri();
+        }
+
+        @Override
+        public Integer getLine() {
+            return testCase.getLine();
+        }
+    }
+}
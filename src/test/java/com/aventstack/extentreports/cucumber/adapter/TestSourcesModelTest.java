@@ -0,0 +1,133 @@
+package com.aventstack.extentreports.cucumber.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import cucumber.api.event.TestSourceRead;
+import gherkin.ast.Background;
+import gherkin.ast.Examples;
+import gherkin.ast.Scenario;
+import gherkin.ast.ScenarioOutline;
+import gherkin.ast.Step;
+import gherkin.ast.TableRow;
+
+public class TestSourcesModelTest {
+
+    private static final String URI = "file:features/sample.feature";
+    private static final String SOURCE = String.join("\n",
+            "Feature: Sample",                          // 1
+            "",                                         // 2
+            "  Background:",                            // 3
+            "    Given a <started> calculator",         // 4
+            "",                                         // 5
+            "  Scenario: Add",                          // 6
+            "    When I add 1 and 2",                   // 7
+            "    Then the result is 3",                 // 8
+            "",                                         // 9
+            "  Scenario Outline: Multiply",             // 10
+            "    When I multiply <a> and <b>",          // 11
+            "    Then the result is <c>",               // 12
+            "",                                         // 13
+            "    Examples: small",                      // 14
+            "      | a | b | c |",                      // 15
+            "      | 1 | 2 | 2 |",                      // 16
+            "      | 2 | 3 | 6 |",                      // 17
+            "",                                         // 18
+            "    Examples: large",                      // 19
+            "      | a   | b   | c     |",              // 20
+            "      | 100 | 200 | 20000 |",              // 21
+            "");
+
+    private static TestSourcesModel model(String source) {
+        TestSourcesModel model = new TestSourcesModel();
+        model.addTestSourceReadEvent(URI, new TestSourceRead(0L, 0L, URI, source));
+        return model;
+    }
+
+    @Test
+    public void indexesScenariosStepsAndExamplesRowsByLine() {
+        TestSourcesModel.SourceFile source = model(SOURCE).getSourceFile(URI);
+        assertNotNull(source);
+        assertTrue(source.getAstNode(3).node instanceof Background);
+        assertTrue(source.getAstNode(4).node instanceof Step);
+        assertTrue(source.getAstNode(6).node instanceof Scenario);
+        assertTrue(source.getAstNode(7).node instanceof Step);
+        assertTrue(source.getAstNode(10).node instanceof ScenarioOutline);
+        assertTrue(source.getAstNode(15).node instanceof TableRow);
+        assertTrue(source.getAstNode(16).node instanceof TestSourcesModel.ExamplesRowWrapperNode);
+        assertTrue(source.getAstNode(21).node instanceof TestSourcesModel.ExamplesRowWrapperNode);
+    }
+
+    @Test
+    public void returnsNullForLinesWithoutNodes() {
+        TestSourcesModel.SourceFile source = model(SOURCE).getSourceFile(URI);
+        for (int line : new int[] { Integer.MIN_VALUE, -1, 0, 1, 2, 5, 9, 13, 14, 18, 19, 22, Integer.MAX_VALUE }) {
+            assertNull("line " + line, source.getAstNode(line));
+            assertNull("line " + line, source.getStepTemplate(line));
+        }
+    }
+
+    @Test
+    public void linksExamplesRowsToTheirOutline() {
+        TestSourcesModel.AstNode row = model(SOURCE).getAstNode(URI, 21);
+        assertTrue(TestSourcesModel.isScenarioOutlineScenario(row));
+        assertTrue(row.parent.node instanceof Examples);
+        assertEquals("large", ((Examples) row.parent.node).getName());
+        assertEquals("Multiply", TestSourcesModel.getScenarioDefinition(row).getName());
+        assertEquals(0, ((TestSourcesModel.ExamplesRowWrapperNode) row.node).bodyRowIndex);
+        assertEquals("sample;multiply;large;2", TestSourcesModel.calculateId(row));
+        assertEquals("sample;multiply;small;3", TestSourcesModel.calculateId(model(SOURCE).getAstNode(URI, 17)));
+    }
+
+    @Test
+    public void countsOneTestCasePerScenarioAndExamplesRow() {
+        assertEquals(4, model(SOURCE).getSourceFile(URI).getTestCaseCount());
+    }
+
+    @Test
+    public void resolvesBackgroundAndStepTemplates() {
+        TestSourcesModel model = model(SOURCE);
+        TestSourcesModel.SourceFile source = model.getSourceFile(URI);
+        assertTrue(source.hasBackground(6));
+        assertTrue(TestSourcesModel.isBackgroundStep(source.getAstNode(4)));
+        assertFalse(TestSourcesModel.isBackgroundStep(source.getAstNode(7)));
+        TestSourcesModel.StepTemplate background = source.getStepTemplate(4);
+        assertEquals("Given ", background.keyword);
+        assertEquals("a &lt;started&gt; calculator", background.escapedText);
+        assertSame(background, source.getStepTemplate(4));
+        assertEquals("Then ", model.getKeywordFromSource(URI, 8));
+    }
+
+    @Test
+    public void findsEveryNodeOfALargeSource() {
+        StringBuilder source = new StringBuilder("Feature: Large\n");
+        int line = 1;
+        for (int i = 0; i < 2000; i++) {
+            source.append("  Scenario: S").append(i).append('\n');
+            source.append("    Given step ").append(i).append('\n');
+            line += 2;
+        }
+        TestSourcesModel.SourceFile file = model(source.toString()).getSourceFile(URI);
+        assertEquals(2000, file.getTestCaseCount());
+        for (int l = 2; l <= line; l += 2) {
+            assertEquals("S" + (l - 2) / 2, ((Scenario) file.getAstNode(l).node).getName());
+            assertEquals("step " + (l - 2) / 2, file.getStepTemplate(l + 1).escapedText);
+        }
+        assertNull(file.getAstNode(line + 1));
+    }
+
+    @Test
+    public void returnsNoSourceForUnparsableOrUnknownFiles() {
+        TestSourcesModel model = model("this is not gherkin\n  Scenario: nope\n");
+        assertNull(model.getSourceFile(URI));
+        assertNull(model.getAstNode(URI, 2));
+        assertNull(model.getSourceFile("file:unknown.feature"));
+        assertFalse(model.hasBackground("file:unknown.feature", 1));
+    }
+}
@@ -0,0 +1,164 @@
+package com.aventstack.extentreports.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.gherkin.model.Feature;
+import com.aventstack.extentreports.observer.ReportObserver;
+import com.aventstack.extentreports.observer.TestObserver;
+import com.aventstack.extentreports.observer.entity.ObservedEntity;
+import com.aventstack.extentreports.observer.entity.ReportEntity;
+import com.aventstack.extentreports.observer.entity.TestEntity;
+
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+public class DeferredReporterTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ExtentReports extent = new ExtentReports();
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Records the tests it is told about and the flushes
+     */
+    private static final class Recorder implements ReportObserver<ObservedEntity>, TestObserver<ObservedEntity> {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch flushed = new CountDownLatch(1);
+
+        @Override
+        public Observer<ReportEntity> getReportObserver() {
+            return observer(x -> {
+                events.add("flush");
+                flushed.countDown();
+            });
+        }
+
+        @Override
+        public Observer<TestEntity> getTestObserver() {
+            return observer(x -> events.add(x.getTest().getName()));
+        }
+
+        private static <E> Observer<E> observer(Consumer<E> onNext) {
+            return new Observer<E>() {
+                @Override
+                public void onSubscribe(Disposable d) {
+                }
+
+                @Override
+                public void onNext(E value) {
+                    onNext.accept(value);
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            };
+        }
+    }
+
+    private static long flush(ExtentReports extent) {
+        long start = System.nanoTime();
+        extent.flush();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Test
+    public void handsTheEntitiesPublishedBeforeItIsReadyToALateReporter() {
+        Recorder recorder = new Recorder();
+        CountDownLatch created = new CountDownLatch(1);
+        extent.attachReporter(new DeferredReporter("late", () -> {
+            created.await();
+            return recorder;
+        }, executor, 60));
+        extent.createTest(Feature.class, "First");
+        extent.createTest(Feature.class, "Second");
+        assertTrue(recorder.events.isEmpty());
+
+        created.countDown();
+        extent.flush();
+        assertEquals(Arrays.asList("First", "Second", "flush"), recorder.events);
+        extent.createTest(Feature.class, "Third");
+        assertEquals("Third", recorder.events.get(3));
+    }
+
+    @Test
+    public void logsAReporterThatCannotBeCreatedAndSkipsIt() {
+        List<LogRecord> records = new CopyOnWriteArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(DeferredReporter.class.getName());
+        logger.addHandler(handler);
+        try {
+            extent.attachReporter(new DeferredReporter("failing", () -> {
+                throw new IOException("no config");
+            }, executor, 60));
+            extent.createTest(Feature.class, "First");
+            long took = flush(extent);
+            extent.createTest(Feature.class, "Second");
+            flush(extent);
+            assertTrue("took " + took + " ms", took < 30000);
+            assertEquals(1, records.size());
+            assertEquals(Level.SEVERE, records.get(0).getLevel());
+            assertEquals("no config", records.get(0).getThrown().getMessage());
+        } finally {
+            logger.removeHandler(handler);
+        }
+    }
+
+    @Test
+    public void flushesALateReporterOnceItIsReadyAfterTheTimeout() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        CountDownLatch created = new CountDownLatch(1);
+        extent.attachReporter(new DeferredReporter("slow", () -> {
+            created.await();
+            return recorder;
+        }, executor, 1));
+        extent.createTest(Feature.class, "First");
+        long took = flush(extent);
+        assertTrue("took " + took + " ms", took >= 1000 && took < 30000);
+        assertTrue(recorder.events.isEmpty());
+
+        created.countDown();
+        assertTrue(recorder.flushed.await(30, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("First", "flush"), recorder.events);
+    }
+}
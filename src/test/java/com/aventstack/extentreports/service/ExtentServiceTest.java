@@ -0,0 +1,35 @@
+package com.aventstack.extentreports.service;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ExtentServiceTest {
+
+    private static final String KEY = "extent.reporter.init.timeout.seconds";
+
+    @After
+    public void clear() {
+        System.clearProperty(KEY);
+    }
+
+    @Test
+    public void readsAWholeNumberProperty() {
+        System.setProperty(KEY, " 5 ");
+        assertEquals(5, ExtentService.getLongProperty(KEY, 60));
+    }
+
+    @Test
+    public void fallsBackToTheDefaultWhenAPropertyIsNotSet() {
+        assertEquals(60, ExtentService.getLongProperty(KEY, 60));
+        System.setProperty(KEY, "");
+        assertEquals(60, ExtentService.getLongProperty(KEY, 60));
+    }
+
+    @Test
+    public void fallsBackToTheDefaultWhenAPropertyIsNotANumber() {
+        System.setProperty(KEY, "5s");
+        assertEquals(60, ExtentService.getLongProperty(KEY, 60));
+    }
+}
@@ -0,0 +1,117 @@
+package com.aventstack.extentreports.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.Test;
+
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+
+public class KlovBulkWriterTest {
+
+    private static WriteModel<Document> insert(Object id, String name) {
+        return new InsertOneModel<>(new Document("_id", id).append("name", name));
+    }
+
+    private static WriteModel<Document> set(Object id, String field, Object value) {
+        return new UpdateOneModel<>(new Document("_id", id), new Document("$set", new Document(field, value)));
+    }
+
+    @SafeVarargs
+    private static List<WriteModel<Document>> models(WriteModel<Document>... models) {
+        return Arrays.asList(models);
+    }
+
+    private static Document doc(WriteModel<Document> insert) {
+        return ((InsertOneModel<Document>) insert).getDocument();
+    }
+
+    @Test
+    public void foldsASetIntoTheInsertOfTheDocument() {
+        WriteModel<Document> insert = insert(1, "feature");
+        List<WriteModel<Document>> coalesced = KlovBulkWriter.coalesce(models(insert, set(1, "status", "pass")));
+        assertEquals(1, coalesced.size());
+        assertSame(insert, coalesced.get(0));
+        assertEquals(new Document("_id", 1).append("name", "feature").append("status", "pass"), doc(insert));
+    }
+
+    @Test
+    public void movesInsertsAheadOfUpdatesOfOtherDocumentsById() {
+        WriteModel<Document> first = insert(1, "a");
+        WriteModel<Document> update = set(9, "count", 2);
+        WriteModel<Document> second = insert(2, "b");
+        WriteModel<Document> updateFirst = new UpdateOneModel<>(new Document("_id", 1),
+                new Document("$inc", new Document("count", 1)));
+        assertEquals(models(first, second, update, updateFirst),
+                KlovBulkWriter.coalesce(models(first, update, second, updateFirst)));
+    }
+
+    @Test
+    public void keepsAnUpdateOfADocumentInsertedLaterBeforeItsInsert() {
+        WriteModel<Document> other = insert(1, "a");
+        WriteModel<Document> update = set(2, "status", "pass");
+        WriteModel<Document> insert = insert(2, "b");
+        assertEquals(models(other, update, insert), KlovBulkWriter.coalesce(models(other, update, insert)));
+        assertEquals(new Document("_id", 2).append("name", "b"), doc(insert));
+    }
+
+    @Test
+    public void keepsUpdatesOfManyDocumentsInPlace() {
+        WriteModel<Document> first = insert(1, "a");
+        WriteModel<Document> updateMany = new UpdateManyModel<>(new Document("status", "running"),
+                new Document("$set", new Document("status", "fail")));
+        WriteModel<Document> second = insert(2, "b");
+        WriteModel<Document> setFirst = set(1, "status", "pass");
+        assertEquals(models(first, updateMany, second, setFirst),
+                KlovBulkWriter.coalesce(models(first, updateMany, second, setFirst)));
+        // the update of many documents may change the first insert, so the
+        // later $set is not folded into it
+        assertEquals(new Document("_id", 1).append("name", "a"), doc(first));
+    }
+
+    @Test
+    public void keepsUpdatesByOtherFiltersInPlace() {
+        WriteModel<Document> first = insert(1, "a");
+        WriteModel<Document> in = new UpdateOneModel<>(new Document("_id", new Document("$in", Arrays.asList(1, 2))),
+                new Document("$set", new Document("status", "pass")));
+        WriteModel<Document> byName = new UpdateOneModel<>(new Document("name", "b"),
+                new Document("$set", new Document("status", "pass")));
+        WriteModel<Document> second = insert(2, "b");
+        assertEquals(models(first, in, byName, second),
+                KlovBulkWriter.coalesce(models(first, in, byName, second)));
+    }
+
+    @Test
+    public void keepsDeletesAndReplacesInPlace() {
+        WriteModel<Document> first = insert(1, "a");
+        WriteModel<Document> delete = new DeleteOneModel<>(new Document("_id", 9));
+        WriteModel<Document> replace = new ReplaceOneModel<>(new Document("_id", 8), new Document("name", "c"));
+        WriteModel<Document> second = insert(2, "b");
+        assertEquals(models(first, delete, replace, second),
+                KlovBulkWriter.coalesce(models(first, delete, replace, second)));
+    }
+
+    @Test
+    public void foldsOnlyTheSetsBeforeAnyOtherUpdateOfTheDocument() {
+        WriteModel<Document> insert = insert(1, "a");
+        WriteModel<Document> inc = new UpdateOneModel<>(new Document("_id", 1),
+                new Document("$inc", new Document("count", 1)));
+        WriteModel<Document> set = set(1, "status", "pass");
+        assertEquals(models(insert, inc, set), KlovBulkWriter.coalesce(models(insert, inc, set)));
+        assertEquals(new Document("_id", 1).append("name", "a"), doc(insert));
+    }
+
+    @Test
+    public void readsTheKlovReporterVersion() {
+        assertEquals("5.0.1", KlovBulkWriter.klovVersion());
+    }
+}
@@ -0,0 +1,129 @@
+package com.aventstack.extentreports.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import com.aventstack.extentreports.observer.entity.ReportEntity;
+
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+public class ParallelFlushTest {
+
+    private static Observer<ReportEntity> observer(Consumer<ReportEntity> onNext) {
+        return new Observer<ReportEntity>() {
+            @Override
+            public void onSubscribe(Disposable d) {
+            }
+
+            @Override
+            public void onNext(ReportEntity value) {
+                onNext.accept(value);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        };
+    }
+
+    private static long flush(ParallelFlush flush) {
+        long start = System.nanoTime();
+        flush.getReportObserver().onNext(ReportEntity.builder().build());
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Test
+    public void rendersEveryReporterBeforeReturning() {
+        ParallelFlush flush = new ParallelFlush(0);
+        AtomicInteger rendered = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            flush.add("r" + i, observer(x -> {
+                sleep(100);
+                rendered.incrementAndGet();
+            }));
+        }
+        flush(flush);
+        assertEquals(3, rendered.get());
+        flush(flush);
+        assertEquals(6, rendered.get());
+    }
+
+    @Test
+    public void interruptsAReporterAfterTheTimeoutAndWaitsForIt() {
+        ParallelFlush flush = new ParallelFlush(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        flush.add("slow", observer(x -> {
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                // cleans up before returning
+                sleep(200);
+            }
+            stopped.set(true);
+        }));
+        long took = flush(flush);
+        assertTrue(interrupted.get());
+        assertTrue(stopped.get());
+        assertTrue("took " + took + " ms", took >= 1200 && took < 30000);
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void waitsForAReporterIgnoringTheInterrupt() {
+        ParallelFlush flush = new ParallelFlush(1);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicBoolean interruptedLater = new AtomicBoolean();
+        flush.add("stubborn", observer(x -> {
+            if (done.get()) {
+                // the interrupt of the previous flush does not carry over
+                interruptedLater.set(Thread.currentThread().isInterrupted());
+                return;
+            }
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1500);
+            while (System.nanoTime() < end) {
+                Thread.yield();
+            }
+            done.set(true);
+        }));
+        long took = flush(flush);
+        assertTrue(done.get());
+        assertTrue("took " + took + " ms", took >= 1500);
+        flush(flush);
+        assertFalse(interruptedLater.get());
+    }
+
+    @Test
+    public void logsAFailedReporterAndFlushesTheOthers() {
+        ParallelFlush flush = new ParallelFlush(0);
+        AtomicInteger rendered = new AtomicInteger();
+        flush.add("failing", observer(x -> {
+            throw new IllegalStateException("failed");
+        }));
+        flush.add("working", observer(x -> rendered.incrementAndGet()));
+        flush(flush);
+        assertEquals(1, rendered.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
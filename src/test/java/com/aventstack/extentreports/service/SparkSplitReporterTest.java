@@ -0,0 +1,185 @@
+package com.aventstack.extentreports.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.gherkin.model.Feature;
+import com.aventstack.extentreports.gherkin.model.Given;
+import com.aventstack.extentreports.gherkin.model.Scenario;
+import com.aventstack.extentreports.model.Report;
+import com.aventstack.extentreports.observer.entity.ReportEntity;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+public class SparkSplitReporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // number of features of each rendering of each page, by file name
+    private final Map<String, List<Integer>> renders = new ConcurrentHashMap<>();
+
+    private SparkSplitReporter reporter(Path out, int featuresPerPage) {
+        return new SparkSplitReporter(out + "/", featuresPerPage, path -> new ExtentSparkReporter(path) {
+            @Override
+            public Observer<ReportEntity> getReportObserver() {
+                Observer<ReportEntity> observer = super.getReportObserver();
+                return new Observer<ReportEntity>() {
+                    @Override
+                    public void onSubscribe(Disposable d) {
+                        observer.onSubscribe(d);
+                    }
+
+                    @Override
+                    public void onNext(ReportEntity value) {
+                        renders.computeIfAbsent(Paths.get(path).getFileName().toString(),
+                                x -> Collections.synchronizedList(new ArrayList<>()))
+                                .add(value.getReport().getTestList().size());
+                        observer.onNext(value);
+                    }
+
+                    @Override
+                    public void onError(Throwable e) {
+                        observer.onError(e);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        observer.onComplete();
+                    }
+                };
+            }
+        });
+    }
+
+    private static ExtentTest feature(ExtentReports extent, String name, boolean pass) {
+        ExtentTest feature = extent.createTest(Feature.class, name);
+        ExtentTest step = feature.createNode(Scenario.class, name + " scenario").createNode(Given.class, "a step");
+        if (pass) {
+            step.pass("passed");
+        } else {
+            step.fail("failed");
+        }
+        return feature;
+    }
+
+    private static void flush(SparkSplitReporter reporter, Report report) {
+        reporter.getReportObserver().onNext(ReportEntity.builder().report(report).build());
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    private int renderCount() {
+        return renders.values().stream().mapToInt(List::size).sum();
+    }
+
+    @Test
+    public void writesAPagePerFeatureAndAnIndex() throws IOException {
+        Path out = folder.getRoot().toPath();
+        ExtentReports extent = new ExtentReports();
+        feature(extent, "First", true);
+        feature(extent, "Second", false);
+        feature(extent, "Third", true);
+        flush(reporter(out, 1), extent.getReport());
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(Files.exists(out.resolve("Index-000" + i + ".html")));
+        }
+        String index = read(out.resolve("Index.html"));
+        assertTrue(index.contains("<a href=\"Index-0002.html\">Second</a></td><td class=\"fail\">fail"));
+        assertTrue(index.contains("<tr><td>Features</td><td class=\"pass\">2</td><td class=\"fail\">1</td>"));
+        assertTrue(index.contains("<tr><td>Steps</td><td class=\"pass\">2</td><td class=\"fail\">1</td>"));
+    }
+
+    @Test
+    public void rendersOnlyThePagesWhoseFeaturesChanged() {
+        Path out = folder.getRoot().toPath();
+        ExtentReports extent = new ExtentReports();
+        feature(extent, "First", true);
+        ExtentTest second = feature(extent, "Second", true);
+        feature(extent, "Third", true);
+        SparkSplitReporter reporter = reporter(out, 1);
+        flush(reporter, extent.getReport());
+        assertEquals(3, renderCount());
+
+        flush(reporter, extent.getReport());
+        assertEquals(3, renderCount());
+
+        second.createNode(Scenario.class, "Another scenario").createNode(Given.class, "a step").pass("passed");
+        flush(reporter, extent.getReport());
+        assertEquals(4, renderCount());
+        assertEquals(2, renders.get("Index-0002.html").size());
+
+        feature(extent, "Fourth", true);
+        flush(reporter, extent.getReport());
+        assertEquals(5, renderCount());
+        assertEquals(1, renders.get("Index-0004.html").size());
+    }
+
+    @Test
+    public void deletesThePagesOfFeaturesNoLongerInTheReport() throws IOException {
+        Path out = folder.getRoot().toPath();
+        Files.write(out.resolve("Index-0009.html"), new byte[0]);
+        Files.write(out.resolve("Index-notes.html"), new byte[0]);
+        ExtentReports extent = new ExtentReports();
+        feature(extent, "First", true);
+        feature(extent, "Second", true);
+        feature(extent, "Third", true);
+        SparkSplitReporter reporter = reporter(out, 1);
+        flush(reporter, extent.getReport());
+        assertFalse(Files.exists(out.resolve("Index-0009.html")));
+        assertTrue(Files.exists(out.resolve("Index-notes.html")));
+
+        extent.getReport().getTestList().remove(2);
+        flush(reporter, extent.getReport());
+        assertFalse(Files.exists(out.resolve("Index-0003.html")));
+        assertTrue(Files.exists(out.resolve("Index-0002.html")));
+        assertFalse(read(out.resolve("Index.html")).contains("Index-0003.html"));
+
+        feature(extent, "Fourth", true);
+        flush(reporter, extent.getReport());
+        assertTrue(Files.exists(out.resolve("Index-0003.html")));
+        assertEquals(2, renders.get("Index-0003.html").size());
+    }
+
+    @Test
+    public void rendersAppendedFeaturesAPageAtATime() throws IOException {
+        Path out = folder.getRoot().toPath();
+        Files.write(out.resolve("Index-0004.html"), new byte[0]);
+        ExtentReports extent = new ExtentReports();
+        SparkSplitReporter reporter = reporter(out, 2);
+        for (int i = 1; i <= 5; i++) {
+            reporter.append(feature(extent, "Feature " + i, i != 3).getModel());
+        }
+        reporter.close();
+        assertEquals(Collections.singletonList(2), renders.get("Index-0001.html"));
+        assertEquals(Collections.singletonList(2), renders.get("Index-0002.html"));
+        assertEquals(Collections.singletonList(1), renders.get("Index-0003.html"));
+        assertFalse(Files.exists(out.resolve("Index-0004.html")));
+        String index = read(out.resolve("Index.html"));
+        assertTrue(index.contains("<a href=\"Index-0002.html\">Feature 3</a></td><td class=\"fail\">fail"));
+        assertTrue(index.contains("<a href=\"Index-0003.html\">Feature 5</a>"));
+        assertTrue(index.contains("<tr><td>Features</td><td class=\"pass\">4</td><td class=\"fail\">1</td>"));
+    }
+}